@@ -0,0 +1,119 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import jade.content.onto.basic.Action;
+import jade.core.AID;
+import smartphone_manufacturing.supply_chain.CustomerOrderStatus;
+import smartphone_manufacturing.supply_chain.SupplierDetails;
+import smartphone_manufacturing.supply_chain.WorkloadGenerator;
+import smartphone_manufacturing.supply_chain.WorkloadProfile;
+import smartphone_manufacturing.supply_chain_ontology.actions.ManufactureOrder;
+import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
+import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
+import smartphone_manufacturing.supply_chain_ontology.concepts.ShipmentLine;
+import smartphone_manufacturing.supply_chain_ontology.concepts.SmartPhone;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.*;
+import smartphone_manufacturing.supply_chain_ontology.predicates.RequestManufacture;
+import smartphone_manufacturing.supply_chain_ontology.predicates.SentSupplierDetails;
+import smartphone_manufacturing.supply_chain_ontology.predicates.ShipmentManifest;
+
+/*
+ * Fixed sample content shared by the benchmarks. Random orders come from the
+ * customers' workload generator with a fixed seed so every run measures the
+ * same data
+ * */
+
+final class BenchmarkMessages {
+
+	static final AID manufacturer = new AID("manufacturer@bench", AID.ISGUID);
+	static final AID customer = new AID("customer-0@bench", AID.ISGUID);
+	static final AID supplier = new AID("supplier-1@bench", AID.ISGUID);
+	static final long SEED = 42L;
+
+	private BenchmarkMessages() {}
+
+	static CustomerOrder customerOrder() {
+		SmartPhone phone = new SmartPhone();
+		phone.setBattery(new SmallBattery());
+		phone.setScreen(new SmallScreen());
+		phone.setRAM(new RAM(8));
+		phone.setStorage(new Storage(256));
+		CustomerOrder order = new CustomerOrder();
+		order.setOrderID("0b7c6f0e-8d6a-4a43-9b55-3f1f5c2a9d10");
+		order.setSmartPhone(phone);
+		order.setQuantity(25);
+		order.setPrice(9000);
+		order.setDaysToDeadline(6);
+		order.setPerDayPenalty(400);
+		return order;
+	}
+
+	static RequestManufacture requestManufacture() {
+		RequestManufacture request = new RequestManufacture();
+		request.setManufacturer(manufacturer);
+		request.setOrder(customerOrder());
+		return request;
+	}
+
+	//customer's REQUEST content, the action wrapped the same way as in CustomerAgent
+	static Action manufactureOrder() {
+		ManufactureOrder manufactureOrder = new ManufactureOrder();
+		manufactureOrder.setBuyer(customer);
+		manufactureOrder.setOrder(customerOrder());
+		Action action = new Action();
+		action.setAction(manufactureOrder);
+		action.setActor(manufacturer);
+		return action;
+	}
+
+	//supplier's delivery of one purchase order, a line per component type as in SendComponents
+	static ShipmentManifest shipmentManifest() {
+		PhoneComponent[] components = {new SmallBattery(), new SmallScreen(), new Storage(256), new RAM(8)};
+		ArrayList<ShipmentLine> lines = new ArrayList<>();
+		for(PhoneComponent component : components) {
+			ArrayList<PhoneComponent> lineComponents = new ArrayList<>();
+			lineComponents.add(component);
+			ShipmentLine line = new ShipmentLine();
+			line.setOrderID("manufacturer-po-17");
+			line.setComponents(lineComponents);
+			line.setQuantity(25);
+			lines.add(line);
+		}
+		ShipmentManifest manifest = new ShipmentManifest();
+		manifest.setSeller(supplier);
+		manifest.setDay(12);
+		manifest.setLines(lines);
+		return manifest;
+	}
+
+	//supplier 1's full catalogue, the largest content the agents send
+	static SentSupplierDetails sentSupplierDetails() {
+		ArrayList<PhoneComponent> components = new ArrayList<>();
+		ArrayList<Long> prices = new ArrayList<>();
+		for(Map.Entry<PhoneComponent, Integer> entry : SupplierDetails.getSupplierOneComponents().entrySet()) {
+			components.add(entry.getKey());
+			prices.add((long) entry.getValue());
+		}
+		SentSupplierDetails details = new SentSupplierDetails();
+		details.setSupplier(supplier);
+		details.setPhoneComponents(components);
+		details.setComponentPrices(prices);
+		details.setDevlieryDays(SupplierDetails.getSupplierOneDelivery());
+		details.setVersion(1);
+		return details;
+	}
+
+	static ArrayList<CustomerOrderStatus> randomOrders(int count) {
+		WorkloadGenerator workload = new WorkloadGenerator(new WorkloadProfile(), SEED, 0);
+		ArrayList<CustomerOrderStatus> orders = new ArrayList<>(count);
+		for(int i=0; i<count; i++) {
+			CustomerOrderStatus status = new CustomerOrderStatus(workload.nextOrder());
+			status.setDayOrdered(1 + i % 100);
+			orders.add(status);
+		}
+		return orders;
+	}
+
+}
@@ -0,0 +1,98 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import jade.content.ContentElement;
+import jade.content.ContentManager;
+import jade.content.lang.Codec;
+import jade.lang.acl.ACLMessage;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
+import smartphone_manufacturing.supply_chain_ontology.ManufacturingOntology;
+
+/*
+ * Encode and decode of the busiest message contents through the agents'
+ * ContentManager setup, for each content codec. The encoded size of each
+ * content is printed at the end of the trial
+ * */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OntologyCodecBench {
+
+	@Param({"RequestManufacture", "ManufactureOrder", "ShipmentManifest", "SentSupplierDetails"})
+	public String content;
+
+	@Param({ContentCodecs.SL, ContentCodecs.LEAP})
+	public String codec;
+
+	private ContentManager manager;
+	private ContentElement element;
+	private String language;
+	private ACLMessage encoded;
+
+	@Setup
+	public void setup() throws Exception {
+		manager = new ContentManager();
+		ContentCodecs.register(manager);
+		System.setProperty(ContentCodecs.CODEC_PROPERTY, codec);
+		Codec selected = ContentCodecs.selected();
+		language = selected.getName();
+		switch(content) {
+		case "RequestManufacture":
+			element = BenchmarkMessages.requestManufacture();
+			break;
+		case "ManufactureOrder":
+			element = BenchmarkMessages.manufactureOrder();
+			break;
+		case "ShipmentManifest":
+			element = BenchmarkMessages.shipmentManifest();
+			break;
+		case "SentSupplierDetails":
+			element = BenchmarkMessages.sentSupplierDetails();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown content " + content);
+		}
+		encoded = message();
+		manager.fillContent(encoded, element);
+	}
+
+	@TearDown
+	public void printSize() {
+		int bytes = encoded.hasByteSequenceContent() ? encoded.getByteSequenceContent().length
+				: encoded.getContent().getBytes(StandardCharsets.UTF_8).length;
+		System.out.printf("%n%s %s: %d bytes%n", content, codec, bytes);
+	}
+
+	private ACLMessage message() {
+		ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+		msg.setLanguage(language);
+		msg.setOntology(ManufacturingOntology.getInstance().getName());
+		return msg;
+	}
+
+	@Benchmark
+	public ACLMessage encode() throws Exception {
+		ACLMessage msg = message();
+		manager.fillContent(msg, element);
+		return msg;
+	}
+
+	@Benchmark
+	public ContentElement decode() throws Exception {
+		return manager.extractContent(encoded);
+	}
+
+}
@@ -0,0 +1,51 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jade.content.ContentManager;
+import jade.content.onto.Ontology;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
+import smartphone_manufacturing.supply_chain_ontology.ManufacturingOntology;
+
+/*
+ * Cost of building the bean ontology (introspection of every concept,
+ * action and predicate) and of the per-agent content manager setup.
+ * The ontology constructor is private so it is called reflectively,
+ * getInstance() would only measure the cached singleton
+ * */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OntologyInitBench {
+
+	private Constructor<ManufacturingOntology> constructor;
+
+	@Setup
+	public void setup() throws Exception {
+		constructor = ManufacturingOntology.class.getDeclaredConstructor(String.class);
+		constructor.setAccessible(true);
+	}
+
+	@Benchmark
+	public Ontology buildOntology() throws Exception {
+		return constructor.newInstance("my_ontology");
+	}
+
+	@Benchmark
+	public ContentManager registerContentManager() {
+		ContentManager manager = new ContentManager();
+		ContentCodecs.register(manager);
+		return manager;
+	}
+
+}
@@ -0,0 +1,61 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import smartphone_manufacturing.supply_chain.CustomerOrderStatus;
+
+/*
+ * Sorting large order lists with the CustomerOrderStatus comparators.
+ * Each call sorts a fresh copy of the same shuffled list, the linear copy
+ * is included in the score
+ * */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderComparatorBench {
+
+	@Param({"1000", "100000"})
+	public int orders;
+
+	private ArrayList<CustomerOrderStatus> source;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		source = BenchmarkMessages.randomOrders(orders);
+	}
+
+	@Benchmark
+	public ArrayList<CustomerOrderStatus> sortByProfit() {
+		ArrayList<CustomerOrderStatus> list = new ArrayList<>(source);
+		Collections.sort(list, CustomerOrderStatus.profit);
+		return list;
+	}
+
+	@Benchmark
+	public ArrayList<CustomerOrderStatus> sortByDeliveryDays() {
+		ArrayList<CustomerOrderStatus> list = new ArrayList<>(source);
+		Collections.sort(list, CustomerOrderStatus.deliveryDays);
+		return list;
+	}
+
+	@Benchmark
+	public ArrayList<CustomerOrderStatus> sortByDeadline() {
+		ArrayList<CustomerOrderStatus> list = new ArrayList<>(source);
+		Collections.sort(list, CustomerOrderStatus.deadline);
+		return list;
+	}
+
+}
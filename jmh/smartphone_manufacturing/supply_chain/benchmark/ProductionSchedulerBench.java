@@ -0,0 +1,83 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import smartphone_manufacturing.supply_chain.CustomerOrderStatus;
+import smartphone_manufacturing.supply_chain.GreedyScheduler;
+import smartphone_manufacturing.supply_chain.Inventory;
+import smartphone_manufacturing.supply_chain.ProfitScheduler;
+import smartphone_manufacturing.supply_chain.Sku;
+
+/*
+ * Choosing a day's build set from a backlog of ready orders: the profit
+ * knapsack against the earliest deadline greedy loop MakeOrder used before,
+ * both after building the few orders booked for the day.
+ * Schedulers reserve stock for the orders they choose, so each call hands
+ * back what it reserved and the next one starts from the same warehouse
+ * */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductionSchedulerBench {
+
+	private static final int STOCK_PER_SKU = 1000000;
+	private static final int DAY = 50;
+
+	@Param({"100", "1000", "5000"})
+	public int orders;
+
+	@Param({"50"})
+	public int capacity;
+
+	private ArrayList<CustomerOrderStatus> ready;
+	private Inventory inventory;
+	private GreedyScheduler greedy = new GreedyScheduler();
+	private ProfitScheduler profit = new ProfitScheduler();
+
+	@Setup(Level.Trial)
+	public void generate() {
+		ready = BenchmarkMessages.randomOrders(orders);
+		ready.sort(CustomerOrderStatus.deadline);
+		//one in a hundred booked for today, the rest for later days so the choice is left to the scheduler
+		for(int i=0; i<ready.size(); i++) {
+			ready.get(i).setBuildDay(i % 100 == 0 ? DAY : DAY + 1);
+		}
+		inventory = new Inventory();
+		for(int sku=0; sku<Sku.COUNT; sku++) {
+			inventory.add(sku, STOCK_PER_SKU);
+		}
+	}
+
+	@Benchmark
+	public List<CustomerOrderStatus> greedy() {
+		return release(greedy.schedule(ready, inventory, capacity, DAY));
+	}
+
+	@Benchmark
+	public List<CustomerOrderStatus> profit() {
+		return release(profit.schedule(ready, inventory, capacity, DAY));
+	}
+
+	//undo the day's reservations, only the few orders built so it adds little to the call
+	private List<CustomerOrderStatus> release(List<CustomerOrderStatus> build) {
+		for(CustomerOrderStatus status : build) {
+			inventory.release(status.getBillOfMaterials(), status.getOrder().getQuantity());
+			status.setComponentsReserved(false);
+		}
+		return build;
+	}
+
+}
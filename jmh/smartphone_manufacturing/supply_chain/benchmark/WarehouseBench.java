@@ -0,0 +1,93 @@
+package smartphone_manufacturing.supply_chain.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import smartphone_manufacturing.supply_chain.CustomerOrderStatus;
+import smartphone_manufacturing.supply_chain.Inventory;
+import smartphone_manufacturing.supply_chain.Sku;
+import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
+
+/*
+ * Warehouse work for a day's ready orders: the SKU indexed Inventory
+ * reserving each order's components as the scheduler does and then using
+ * them as MakeOrder does, against the original check-and-consume on a
+ * HashMap keyed by component hash code. Each call starts from a freshly stocked
+ * warehouse, only Sku.COUNT entries so small next to the orders
+ * */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WarehouseBench {
+
+	private static final int STOCK_PER_SKU = 10000;
+
+	@Param({"100", "10000"})
+	public int orders;
+
+	private ArrayList<CustomerOrderStatus> ready;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		ready = BenchmarkMessages.randomOrders(orders);
+	}
+
+	@Benchmark
+	public int reserveThenBuild() {
+		Inventory inventory = new Inventory();
+		for(int sku=0; sku<Sku.COUNT; sku++) {
+			inventory.add(sku, STOCK_PER_SKU);
+		}
+		int built = 0;
+		for(CustomerOrderStatus status : ready) {
+			int quantity = status.getOrder().getQuantity();
+			if(inventory.reserve(status.getBillOfMaterials(), quantity)) {
+				inventory.consumeReserved(status.getBillOfMaterials(), quantity);
+				built += quantity;
+			}
+		}
+		return built;
+	}
+
+	@Benchmark
+	public int legacyHashMap() {
+		HashMap<Integer, Integer> legacyWarehouse = new HashMap<>();
+		for(int sku=0; sku<Sku.COUNT; sku++) {
+			legacyWarehouse.put(Sku.component(sku).hashCode(), STOCK_PER_SKU);
+		}
+		int built = 0;
+		for(CustomerOrderStatus status : ready) {
+			ArrayList<PhoneComponent> phoneComponents = status.getOrder().getSmartPhone().getPhoneComponents();
+			int quantity = status.getOrder().getQuantity();
+			boolean warehouseHasComponents = true;
+			for(PhoneComponent component : phoneComponents) {
+				if(!legacyWarehouse.containsKey(component.hashCode()) || (legacyWarehouse.containsKey(component.hashCode())
+						&& legacyWarehouse.get(component.hashCode()) < quantity)){
+					warehouseHasComponents = false;
+					break;
+				}
+			}
+			if(warehouseHasComponents) {
+				for(PhoneComponent component : phoneComponents) {
+					int currQty = legacyWarehouse.get(component.hashCode());
+					legacyWarehouse.put(component.hashCode(), (currQty - quantity));
+				}
+				built += quantity;
+			}
+		}
+		return built;
+	}
+
+}
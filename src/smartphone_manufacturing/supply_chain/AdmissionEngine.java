@@ -0,0 +1,140 @@
+package smartphone_manufacturing.supply_chain;
+
+/*
+ * Decides whether to quote for a customer order. Keeps a calendar of the
+ * phones already booked on each coming day and looks at warehouse stock
+ * not held for another order. An order is booked on the first day from
+ * when its components can be in the warehouse that has room for it, and
+ * is accepted if its profit after storage and any late penalties is
+ * positive. Bought components are ordered so they arrive on the build day
+ * (the purchase day is the build day less the lead time). Orders that can
+ * be built from free stock hold those components straight away, need
+ * nothing bought and pay storage on them until the build day. Bookings
+ * not built by their day are carried to the next day. The calendar is a
+ * ring of days so each decision looks at a few days only
+ * */
+
+public class AdmissionEngine {
+
+	private static final int HORIZON = 64; //days ahead that can be booked, power of two
+
+	private final Inventory warehouse;
+	private final int dailyCapacity;
+	private final int[] booked = new int[HORIZON]; //phones booked by day
+	private int today = 1;
+
+	//build and purchase day worked out for an order and the profit expected from it
+	public static class Plan {
+		private final boolean fromStock;
+		private final int buildDay;
+		private final int purchaseDay;
+		private final long profit;
+
+		private Plan(boolean fromStock, int buildDay, int purchaseDay, long profit) {
+			this.fromStock = fromStock;
+			this.buildDay = buildDay;
+			this.purchaseDay = purchaseDay;
+			this.profit = profit;
+		}
+
+		public long getProfit() {
+			return profit;
+		}
+	}
+
+	public AdmissionEngine(Inventory warehouse, int dailyCapacity) {
+		this.warehouse = warehouse;
+		this.dailyCapacity = dailyCapacity;
+	}
+
+	//move to a new day, what was booked on earlier days and not built is now due today
+	public void startDay(int day) {
+		while(today < day) {
+			int carried = booked[slot(today)];
+			booked[slot(today)] = 0;
+			today++;
+			booked[slot(today)] += carried;
+		}
+	}
+
+	//first day the order fits, null if it is not worth taking. componentCost and deliveryDays are for
+	//buying its components, holdingCost for storing any that arrive before the build day. Nothing is booked
+	public Plan plan(CustomerOrderStatus status, int componentCost, int holdingCost, int deliveryDays) {
+		int quantity = status.getOrder().getQuantity();
+		if(quantity <= 0 || quantity > dailyCapacity) {
+			return null;
+		}
+		boolean fromStock = warehouse.canBuild(status.getBillOfMaterials(), quantity);
+		int readyDay = fromStock ? today : today + deliveryDays;
+		//stock on hand is already paid for but is stored until it is used
+		long profit = (long) status.getOrder().getPrice() - (fromStock ? 0 : componentCost + holdingCost);
+		long storagePerDay = fromStock ? (long) quantity * status.getBillOfMaterials().length * Ledger.STORAGE_COST_PER_UNIT : 0;
+
+		//first day with room, no later than the penalties would allow
+		int deadlineDay = status.getDeadlineDay();
+		int perDayPenalty = status.getOrder().getPerDayPenalty();
+		int lastDay = today + HORIZON - 1;
+		if(perDayPenalty > 0) {
+			lastDay = (int) Math.min(lastDay, deadlineDay + (profit - 1) / perDayPenalty);
+		}
+		for(int buildDay = readyDay; buildDay <= lastDay; buildDay++) {
+			if(booked[slot(buildDay)] + quantity > dailyCapacity) {
+				continue;
+			}
+			long lateDays = Math.max(0, buildDay - deadlineDay);
+			long expected = profit - lateDays * perDayPenalty - (buildDay - readyDay) * storagePerDay;
+			if(expected <= 0) {
+				return null; //a later day only costs more
+			}
+			return new Plan(fromStock, buildDay, fromStock ? today : buildDay - deliveryDays, expected);
+		}
+		return null;
+	}
+
+	//take the day planned for the order, and hold its components if it is built from stock
+	public void book(CustomerOrderStatus status, Plan plan) {
+		int quantity = status.getOrder().getQuantity();
+		booked[slot(plan.buildDay)] += quantity;
+		status.setBuildDay(plan.buildDay);
+		status.setPurchaseDay(plan.purchaseDay);
+		if(plan.fromStock) {
+			warehouse.reserve(status.getBillOfMaterials(), quantity);
+			status.setComponentsReserved(true);
+		}
+	}
+
+	//order cancelled before it was built, frees its booking and any stock held for it
+	public void withdraw(CustomerOrderStatus status) {
+		unbook(status);
+		if(status.isComponentsReserved()) {
+			warehouse.release(status.getBillOfMaterials(), status.getOrder().getQuantity());
+			status.setComponentsReserved(false);
+		}
+	}
+
+	//order built, its booking is no longer needed
+	public void built(CustomerOrderStatus status) {
+		unbook(status);
+	}
+
+	//phones that can still be booked on a day
+	public int getFreeCapacity(int day) {
+		if(day < today || day >= today + HORIZON) {
+			return 0;
+		}
+		return dailyCapacity - booked[slot(day)];
+	}
+
+	private void unbook(CustomerOrderStatus status) {
+		//bookings on past days have been carried to today
+		int day = Math.max(status.getBuildDay(), today);
+		if(day < today + HORIZON) {
+			booked[slot(day)] = Math.max(0, booked[slot(day)] - status.getOrder().getQuantity());
+		}
+	}
+
+	private static int slot(int day) {
+		return day & (HORIZON - 1);
+	}
+
+}
@@ -0,0 +1,74 @@
+package smartphone_manufacturing.supply_chain;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+/*
+ * One per peripheral container. Reports the messages sent from its JVM, in
+ * total and by conversation, to the ticker at the end of the run for the
+ * per-container throughput report
+ * */
+
+public class ContainerStatsAgent extends Agent {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected void setup() {
+		//add agent to yellow pages, not a simulation agent so the ticker doesn't wait for it
+		DFAgentDescription dfd = new DFAgentDescription();
+		dfd.setName(getAID());
+		ServiceDescription sd = new ServiceDescription();
+		sd.setType("stats-agent");
+		sd.setName(getLocalName() + "-stats-agent");
+		dfd.addServices(sd);
+		try {
+			DFService.register(this, dfd);
+		}catch(FIPAException e) {
+			e.printStackTrace();
+		}
+
+		addBehaviour(new ReportStats(this));
+	}
+
+	@Override
+	protected void takeDown() {
+		try {
+			DFService.deregister(this);
+		}catch(FIPAException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public class ReportStats extends CyclicBehaviour {
+
+		private static final long serialVersionUID = 1L;
+
+		public ReportStats(Agent a) {
+			super(a);
+		}
+
+		@Override
+		public void action() {
+			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST), MessageTemplate.MatchConversationId("stats-report"));
+			ACLMessage msg = myAgent.receive(mt);
+			if(msg != null) {
+				ACLMessage reply = msg.createReply();
+				reply.setPerformative(ACLMessage.INFORM);
+				reply.addUserDefinedParameter("container", here().getName());
+				reply.addUserDefinedParameter("messages", String.valueOf(SimulationStats.getMessagesSent()));
+				reply.setContent(MessageTraffic.getInstance().encodeTotals());
+				SimulationStats.send(myAgent, reply);
+			}else {
+				block();
+			}
+		}
+	}
+
+}
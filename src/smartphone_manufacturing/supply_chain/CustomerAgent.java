@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Scanner;
 import java.util.Random;
-import java.util.UUID;
 
 import jade.core.AID;
 import jade.core.Agent;
@@ -21,22 +20,15 @@ import jade.lang.acl.MessageTemplate;
 import jade.content.ContentElement;
 import jade.content.lang.Codec;
 import jade.content.lang.Codec.CodecException;
-import jade.content.lang.sl.SLCodec;
 import jade.content.onto.Ontology;
 import jade.content.onto.OntologyException;
 import jade.content.onto.basic.Action;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
 import smartphone_manufacturing.supply_chain_ontology.ManufacturingOntology;
 import smartphone_manufacturing.supply_chain_ontology.actions.ManufactureOrder;
-import smartphone_manufacturing.supply_chain_ontology.concepts.SmartPhone;
 import smartphone_manufacturing.supply_chain_ontology.concepts.SmallPhone;
 import smartphone_manufacturing.supply_chain_ontology.concepts.Phablet;
 import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletBattery;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletScreen;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.RAM;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallBattery;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallScreen;
-import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.Storage;
 import smartphone_manufacturing.supply_chain_ontology.predicates.RequestManufacture;
 import smartphone_manufacturing.supply_chain_ontology.predicates.OrderShipped;
 import smartphone_manufacturing.supply_chain_ontology.predicates.PaymentSent;
@@ -44,13 +36,16 @@ import smartphone_manufacturing.supply_chain_ontology.predicates.PaymentSent;
 public class CustomerAgent extends Agent {
 	
 	private static final long serialVersionUID = 1L;
-	private Codec codec = new SLCodec();
+	private Codec codec = ContentCodecs.selected(); //language for outgoing messages
 	private AID tickerAgent;
 	//private int numQueriesSent;
-	private AID manufacturerAgent;
+	private AID manufacturerAgent; //manufacturer chosen for today's order
+	private ArrayList<AID> manufacturers = new ArrayList<>(); //every manufacturer asked for a quote today
 	private int day = 1;
 	private CustomerOrder todaysOrder;
 	private ArrayList<CustomerOrder> requestedOrders = new ArrayList<>(); //accepted orders
+	private WorkloadGenerator workload;
+	private OrderTrace trace; //replay orders from here when set
 	
 	//get ontology
 	private Ontology ontology = ManufacturingOntology.getInstance();
@@ -58,8 +53,19 @@ public class CustomerAgent extends Agent {
 	@Override
 	protected void setup() {
 		// setup ontology
-		getContentManager().registerLanguage(codec);
-		getContentManager().registerOntology(ontology);
+		ContentCodecs.register(getContentManager());
+		
+		//args: run seed, customer index, workload profile, order trace (optional)
+		Object[] args = getArguments();
+		if(args != null && args.length > 2) {
+			workload = new WorkloadGenerator((WorkloadProfile) args[2], (long) args[0], (int) args[1]);
+			if(args.length > 3) {
+				trace = (OrderTrace) args[3];
+			}
+		}else {
+			//started without a run seed, orders are not reproducible
+			workload = new WorkloadGenerator(new WorkloadProfile(), System.nanoTime(), getLocalName().hashCode());
+		}
 		
 		//add this agent to yellow pages
 		DFAgentDescription dfd = new DFAgentDescription();
@@ -79,6 +85,8 @@ public class CustomerAgent extends Agent {
 		addBehaviour(new TickerWaitBehaviour(this));
 		//add receive order cyclic behaviour - outside of usual behaviour loop so days can continue
 		addBehaviour(new ReceiveOrder(this));
+		//tell ticker agent this agent is ready to start
+		addBehaviour(new ReadySignalBehaviour(this));
 		
 	}
 	
@@ -106,16 +114,20 @@ public class CustomerAgent extends Agent {
 			MessageTemplate mt = MessageTemplate.or(MessageTemplate.MatchContent("new-day"), MessageTemplate.MatchContent("terminate"));
 			ACLMessage msg = myAgent.receive(mt);
 			if(msg != null) {
-				if(tickerAgent == null) {
-					tickerAgent = msg.getSender();
-				}
+				//ticker or the sub-ticker collecting this agent's "done", can change between days
+				tickerAgent = msg.getSender();
 				if(msg.getContent().equals("new-day")) {
+					SimulationStats.dayStarted(day);
 					//spawn new sequential behaviour for new day
 					SequentialBehaviour dailyActivity = new SequentialBehaviour();
 					//sub behaviours execute in the order that they are added
 					//for example: "dailyActivity.addSubBehaviour(new FindSellers(myAgent));" etc.
 					
-					dailyActivity.addSubBehaviour(new generateNewOrder(myAgent));
+					if(trace != null) {
+						dailyActivity.addSubBehaviour(new replayOrder(myAgent));
+					}else {
+						dailyActivity.addSubBehaviour(new generateNewOrder(myAgent));
+					}
 					dailyActivity.addSubBehaviour(new requestManufacturer(myAgent));
 					dailyActivity.addSubBehaviour(new sendOrder(myAgent));
 					dailyActivity.addSubBehaviour(new EndOfDay(myAgent));
@@ -144,71 +156,30 @@ public class CustomerAgent extends Agent {
 		@Override
 		public void action() {
 			
-			todaysOrder = new CustomerOrder();
-			SmartPhone phone = new SmartPhone();
-			RAM ram;
-			Storage storage;
-			SmallBattery smallBatt = new SmallBattery();
-			SmallScreen smallScreen = new SmallScreen();
-			PhabletBattery phabBatt = new PhabletBattery();
-			PhabletScreen phabScreen = new PhabletScreen();
-			
-			// random order specification generator
-			double rand = Math.random();
-			int orderQty = (int) Math.floor(1 + 50 * (rand));
-			rand = Math.random();
-			int price = (int) ((int) orderQty * Math.floor(100 + (500 * (rand))));
-			rand = Math.random();
-			int dueDays = (int) Math.floor(1 + 10 * rand);
-			rand = Math.random();
-			int perDayFee = (int) (orderQty * (Math.floor(1 + 50 * (rand))));
+			//next order from this customer's seeded stream
+			todaysOrder = workload.nextOrder();
+			//System.out.println(todaysOrder.toString());
 			
-			rand = Math.random();
-			if(rand < 0.5) {
-				//small phone
-				phone.setBattery(smallBatt);
-				phone.setScreen(smallScreen);
-			}
-			else {
-				//phablet
-				phone.setBattery(phabBatt);
-				phone.setScreen(phabScreen);
-			}
-			rand = Math.random();
-			if(rand< 0.5) {
-				ram = new RAM(4);
-			}
-			else {
-				ram = new RAM(8);
-			}
-			rand = Math.random();
-			if(rand< 0.5) {
-				storage = new Storage(64);
-			}
-			else {
-				storage = new Storage(256);
-			}
+		}
+	}
+	
+	public class replayOrder extends OneShotBehaviour {
+		
+		private static final long serialVersionUID = 1L;
+
+		public replayOrder(Agent a) {
+			super(a);
+		}
+		
+		@Override
+		public void action() {
 			
-			//set phone to have generated components
-			phone.setRAM(ram);
-			phone.setStorage(storage);
-			
-			//set order to have generated phone and random fees
-			todaysOrder.setOrderID(generateOrderID());
-			todaysOrder.setSmartPhone(phone);
-			todaysOrder.setPrice(price);
-			todaysOrder.setDaysToDeadline(dueDays);
-			todaysOrder.setQuantity(orderQty);
-			todaysOrder.setPerDayPenalty(perDayFee);
-			//System.out.println(todaysOrder.toString());
+			//today's order for this customer from the order trace
+			todaysOrder = trace.read(day, workload.getCustomerIndex());
 			
 		}
 	}
 	
-    public static String generateOrderID() {
-    	return UUID.randomUUID().toString();
-    }
-    
 	public class requestManufacturer extends OneShotBehaviour {
 
 		private static final long serialVersionUID = 1L;
@@ -219,37 +190,41 @@ public class CustomerAgent extends Agent {
 		
 		@Override
 		public void action() {
-			//find manufacturer
+			//find manufacturers
 			DFAgentDescription manufacturerTemplate = new DFAgentDescription();
 			ServiceDescription sd = new ServiceDescription();
 			sd.setType("manufacturer-agent");
 			manufacturerTemplate.addServices(sd);
+			manufacturers.clear();
+			manufacturerAgent = null;
 			try {
 				DFAgentDescription[] manufacturerList  = DFService.search(myAgent, manufacturerTemplate);
-				if(manufacturerList.length >0) {
-					manufacturerAgent = manufacturerList[0].getName(); //gets AID of manufacturer
+				for(DFAgentDescription manufacturer : manufacturerList) {
+					manufacturers.add(manufacturer.getName()); //gets AID of manufacturer
 				}
 				
 			}catch(FIPAException e) {
 				e.printStackTrace();
 			}
-			//prepare query
-			RequestManufacture requestManufacture = new RequestManufacture();
-			ACLMessage requestMsg = new ACLMessage(ACLMessage.QUERY_IF);
-			requestMsg.setLanguage(codec.getName());
-			requestMsg.setOntology(ontology.getName());
-			requestMsg.setConversationId("customer-order-request");
-			requestMsg.addReceiver(manufacturerAgent);
-			requestManufacture.setManufacturer(manufacturerAgent);
-			requestManufacture.setOrder(todaysOrder);
-			try {
-				getContentManager().fillContent(requestMsg, requestManufacture);
-				//send query
-				send(requestMsg);
-			}catch(CodecException ce) {
-				ce.printStackTrace();
-			}catch(OntologyException oe) {
-				oe.printStackTrace();
+			//ask every manufacturer for a quote
+			for(AID manufacturer : manufacturers) {
+				RequestManufacture requestManufacture = new RequestManufacture();
+				ACLMessage requestMsg = new ACLMessage(ACLMessage.QUERY_IF);
+				requestMsg.setLanguage(codec.getName());
+				requestMsg.setOntology(ontology.getName());
+				requestMsg.setConversationId("customer-order-request");
+				requestMsg.addReceiver(manufacturer);
+				requestManufacture.setManufacturer(manufacturer);
+				requestManufacture.setOrder(todaysOrder);
+				try {
+					getContentManager().fillContent(requestMsg, requestManufacture);
+					//send query
+					SimulationStats.send(myAgent, requestMsg);
+				}catch(CodecException ce) {
+					ce.printStackTrace();
+				}catch(OntologyException oe) {
+					oe.printStackTrace();
+				}
 			}
 		}
 	}
@@ -261,7 +236,8 @@ public class CustomerAgent extends Agent {
 			super(a);
 		}
 		
-		private Boolean responseReceived = false;
+		private int responsesReceived = 0;
+		private ArrayList<AID> confirmed = new ArrayList<>(); //in the order their quotes arrived
 		
 		@Override
 		public void action() {
@@ -270,39 +246,22 @@ public class CustomerAgent extends Agent {
 			
 			ACLMessage msg = myAgent.receive(mt);
 			if(msg != null) {
-				responseReceived = true;
+				responsesReceived++;
 				if(msg.getPerformative() == ACLMessage.CONFIRM) {
-					//prepare message
-					ACLMessage sendOrderMsg = new ACLMessage(ACLMessage.REQUEST);
-					sendOrderMsg.setConversationId("customer-order-sent");
-					sendOrderMsg.setLanguage(codec.getName());
-					sendOrderMsg.setOntology(ontology.getName());
-					sendOrderMsg.addReceiver(manufacturerAgent);
-					
-					//use ontology to request 'manufactureOrder' action
-					ManufactureOrder manufactureOrder = new ManufactureOrder();
-					Action action = new Action();
-					manufactureOrder.setOrder(todaysOrder);
-					manufactureOrder.setBuyer(myAgent.getAID());
-					action.setAction(manufactureOrder);
-					action.setActor(manufacturerAgent);
-					
-					//send action request
-					try {
-						requestedOrders.add(todaysOrder);
-						getContentManager().fillContent(sendOrderMsg, action);
-						send(sendOrderMsg);
-					}catch(CodecException ce) {
-						ce.printStackTrace();
-					}catch(OntologyException oe) {
-						oe.printStackTrace();
-					}
-					
+					confirmed.add(msg.getSender());
 				}
 				//order rejected
 				else {
 					//System.out.println("\n DENIED ORDER: Customer " + myAgent.getLocalName());
 				}
+				if(responsesReceived == manufacturers.size() && !confirmed.isEmpty()) {
+					//order from the quickest manufacturer to accept, the others release their quote
+					manufacturerAgent = confirmed.get(0);
+					requestedOrders.add(todaysOrder);
+					for(AID manufacturer : confirmed) {
+						sendOrderAction(manufacturer, manufacturer.equals(manufacturerAgent) ? ACLMessage.REQUEST : ACLMessage.CANCEL);
+					}
+				}
 			}
 			//reply not received
 			else {
@@ -311,9 +270,37 @@ public class CustomerAgent extends Agent {
 			
 		}
 		
+		//REQUEST the manufactureOrder action from the chosen manufacturer or CANCEL it with the others
+		private void sendOrderAction(AID manufacturer, int performative) {
+			//prepare message
+			ACLMessage sendOrderMsg = new ACLMessage(performative);
+			sendOrderMsg.setConversationId("customer-order-sent");
+			sendOrderMsg.setLanguage(codec.getName());
+			sendOrderMsg.setOntology(ontology.getName());
+			sendOrderMsg.addReceiver(manufacturer);
+			
+			//use ontology to request 'manufactureOrder' action
+			ManufactureOrder manufactureOrder = new ManufactureOrder();
+			Action action = new Action();
+			manufactureOrder.setOrder(todaysOrder);
+			manufactureOrder.setBuyer(myAgent.getAID());
+			action.setAction(manufactureOrder);
+			action.setActor(manufacturer);
+			
+			//send action request
+			try {
+				getContentManager().fillContent(sendOrderMsg, action);
+				SimulationStats.send(myAgent, sendOrderMsg);
+			}catch(CodecException ce) {
+				ce.printStackTrace();
+			}catch(OntologyException oe) {
+				oe.printStackTrace();
+			}
+		}
+		
 		@Override
 		public boolean done() {
-	      return responseReceived;
+	      return responsesReceived >= manufacturers.size();
 	    }
 	}
 	
@@ -345,7 +332,7 @@ public class CustomerAgent extends Agent {
 						customerPayment.setOrderID(orderID);
 						customerPayment.setPrice(price);
 						getContentManager().fillContent(payment, customerPayment);
-						send(payment); // send payment to manufacturer
+						SimulationStats.send(myAgent, payment); // send payment to manufacturer
 						requestedOrders.remove(order); //remove order from orders
 						
 					}else {
@@ -374,7 +361,7 @@ public class CustomerAgent extends Agent {
 			ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
 			doneMsg.setContent("done");
 			doneMsg.addReceiver(tickerAgent);
-			myAgent.send(doneMsg);
+			SimulationStats.send(myAgent, doneMsg);
 			day++;
 		}
 	}
@@ -9,7 +9,9 @@ import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
 public class CustomerOrderStatus {
 	
 	private boolean orderCompleted; //know when order has been completed
-	private AID supplier;
+	private AID[] partSuppliers; //supplier of each part of the bill of materials
+	private int[] partPrices; //unit price of each part
+	private int partsOutstanding; //supplier deliveries still to arrive
 	private AID customer;
 	private CustomerOrder order;
 	private int price;
@@ -17,6 +19,13 @@ public class CustomerOrderStatus {
 	private int componentDeliveryDate;
 	private int dayOrdered;
 	private int phonesBuilt;
+	private int[] billOfMaterials; //sku ids of the phone's components
+	private OrderBook.Stage stage;
+	private DeadlineWheel.Node deadlineNode; //place on the ledger's deadline wheel while open
+	private int buildDay; //day the admission engine booked the order to be built
+	private int purchaseDay; //day its components are bought so they arrive by the build day
+	private boolean componentsReserved; //components are in the warehouse and held for this order
+	private int[] heldParts = new int[0]; //skus delivered and held for this order before all its parts are in
 	
 	public CustomerOrderStatus(CustomerOrder order){
 		this.setOrder(order);
@@ -31,12 +40,28 @@ public class CustomerOrderStatus {
 		this.orderCompleted = bool;
 	}
 
-	public AID getSupplier() {
-		return supplier;
+	public AID[] getPartSuppliers() {
+		return partSuppliers;
 	}
 
-	public void setSupplier(AID supplier) {
-		this.supplier = supplier;
+	public void setPartSuppliers(AID[] partSuppliers) {
+		this.partSuppliers = partSuppliers;
+	}
+
+	public int[] getPartPrices() {
+		return partPrices;
+	}
+
+	public void setPartPrices(int[] partPrices) {
+		this.partPrices = partPrices;
+	}
+
+	public int getPartsOutstanding() {
+		return partsOutstanding;
+	}
+
+	public void setPartsOutstanding(int partsOutstanding) {
+		this.partsOutstanding = partsOutstanding;
 	}
 
 	public AID getCustomer() {
@@ -53,6 +78,7 @@ public class CustomerOrderStatus {
 
 	public void setOrder(CustomerOrder order) {
 		this.order = order;
+		this.billOfMaterials = Sku.billOfMaterials(order.getSmartPhone());
 	}
 
 	public int getPrice() {
@@ -87,6 +113,63 @@ public class CustomerOrderStatus {
 		this.dayOrdered = dayOrdered;
 	}
 
+	public OrderBook.Stage getStage() {
+		return stage;
+	}
+
+	public void setStage(OrderBook.Stage stage) {
+		this.stage = stage;
+	}
+
+	//last day the order can be delivered without a late penalty
+	public int getDeadlineDay() {
+		return dayOrdered + order.getDaysToDeadline();
+	}
+
+	public DeadlineWheel.Node getDeadlineNode() {
+		return deadlineNode;
+	}
+
+	public void setDeadlineNode(DeadlineWheel.Node deadlineNode) {
+		this.deadlineNode = deadlineNode;
+	}
+
+	public int getBuildDay() {
+		return buildDay;
+	}
+
+	public void setBuildDay(int buildDay) {
+		this.buildDay = buildDay;
+	}
+
+	public int getPurchaseDay() {
+		return purchaseDay;
+	}
+
+	public void setPurchaseDay(int purchaseDay) {
+		this.purchaseDay = purchaseDay;
+	}
+
+	public boolean isComponentsReserved() {
+		return componentsReserved;
+	}
+
+	public void setComponentsReserved(boolean componentsReserved) {
+		this.componentsReserved = componentsReserved;
+	}
+
+	public int[] getHeldParts() {
+		return heldParts;
+	}
+
+	public void setHeldParts(int[] heldParts) {
+		this.heldParts = heldParts;
+	}
+
+	public int[] getBillOfMaterials() {
+		return billOfMaterials;
+	}
+
 	public int getPhonesBuilt() {
 		return phonesBuilt;
 	}
@@ -97,7 +180,7 @@ public class CustomerOrderStatus {
 
 	@Override
 	public String toString() {
-		return "CustomerOrderStatus [orderCompleted=" + orderCompleted + ", supplier=" + supplier.getLocalName() + ", customer="
+		return "CustomerOrderStatus [orderCompleted=" + orderCompleted + ", partSuppliers=" + java.util.Arrays.toString(partSuppliers) + ", customer="
 				+ customer.getLocalName() + ", order=" + order + ", price=" + price + ", components=" + components
 				+ ", componentDeliveryDate=" + componentDeliveryDate + ", dayOrdered=" + dayOrdered + ", phonesBuilt="
 				+ phonesBuilt + "]";
@@ -131,4 +214,12 @@ public class CustomerOrderStatus {
 		   return o2Price-o1Price;
 		}};
 
+	public static Comparator<CustomerOrderStatus> deadline = new Comparator<CustomerOrderStatus>() {
+
+		public int compare(CustomerOrderStatus o1, CustomerOrderStatus o2) {
+
+		   /*earliest deadline day first*/
+		   return o1.getDeadlineDay() - o2.getDeadlineDay();
+		}};
+
 }
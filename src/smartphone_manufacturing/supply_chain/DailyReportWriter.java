@@ -0,0 +1,125 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Writes a manufacturer's daily financial records to <report dir>/<agent>-daily.csv
+ * off the agent thread. The agent puts fixed layout records into a single
+ * producer, single consumer ring buffer of longs and a background thread
+ * formats and appends them. The directory is set with
+ * -Dsupply_chain.report-dir (default "reports")
+ * */
+
+public class DailyReportWriter {
+
+	public static final String REPORT_DIR_PROPERTY = "supply_chain.report-dir";
+	private static final String HEADER = "day,revenue,storage_cost,penalties,supply_cost,phones_built,orders_accepted,total_profit";
+	private static final int FIELDS = 8;
+	private static final int CAPACITY = 1024; //records, power of two
+	private static final long FULL_PARK_NANOS = 1_000_000; //agent's wait for the writer to free a slot
+
+	private final long[] ring = new long[CAPACITY * FIELDS];
+	private final AtomicLong head = new AtomicLong(); //next record to write, advanced by the writer thread
+	private final AtomicLong tail = new AtomicLong(); //next free slot, advanced by the agent
+	private final Path file;
+	private final Thread writer;
+	private volatile boolean closed = false;
+	private volatile boolean failed = false; //file could not be written, records are dropped
+
+	public DailyReportWriter(String agentName) {
+		//absolute so an empty directory setting still has a parent to create
+		file = Paths.get(System.getProperty(REPORT_DIR_PROPERTY, "reports"), agentName + "-daily.csv").toAbsolutePath();
+		writer = new Thread(this::run, "report-writer-" + agentName);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	//called from the agent thread only
+	public void record(int day, long revenue, long storageCost, long penalties, long supplyCost, int phonesBuilt,
+			int ordersAccepted, long totalProfit) {
+		if(failed) {
+			return;
+		}
+		long slot = tail.get();
+		while(slot - head.get() >= CAPACITY && !failed) {
+			//writer has fallen a whole buffer behind, wait for it rather than drop days
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(FULL_PARK_NANOS);
+		}
+		int offset = (int) (slot & (CAPACITY - 1)) * FIELDS;
+		ring[offset] = day;
+		ring[offset + 1] = revenue;
+		ring[offset + 2] = storageCost;
+		ring[offset + 3] = penalties;
+		ring[offset + 4] = supplyCost;
+		ring[offset + 5] = phonesBuilt;
+		ring[offset + 6] = ordersAccepted;
+		ring[offset + 7] = totalProfit;
+		tail.set(slot + 1); //publishes the record to the writer
+		LockSupport.unpark(writer);
+	}
+
+	//write out everything recorded so far and stop the writer thread
+	public void close() {
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		try {
+			Files.createDirectories(file.getParent());
+			try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				out.write(HEADER);
+				out.newLine();
+				StringBuilder line = new StringBuilder();
+				while(true) {
+					long next = head.get();
+					long end = tail.get();
+					if(next == end) {
+						//closed is set after the last record is published so check for it again
+						if(closed && tail.get() == next) {
+							break;
+						}
+						out.flush();
+						//record() and close() unpark us, a permit given before this call isn't lost
+						LockSupport.park(this);
+						continue;
+					}
+					for(; next < end; next++) {
+						int offset = (int) (next & (CAPACITY - 1)) * FIELDS;
+						line.setLength(0);
+						for(int field=0; field<FIELDS; field++) {
+							if(field > 0) {
+								line.append(',');
+							}
+							line.append(ring[offset + field]);
+						}
+						out.append(line);
+						out.newLine();
+					}
+					head.set(end); //frees the slots
+				}
+			}
+		}catch(IOException e) {
+			failed = true;
+			e.printStackTrace();
+		}catch(RuntimeException e) {
+			//the agent would otherwise wait forever for a dead writer once the buffer fills
+			failed = true;
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package smartphone_manufacturing.supply_chain;
+
+/*
+ * Timing wheel of open orders keyed by the first day they are late. Each
+ * slot is a circular list of orders, a slot holds every day that is equal
+ * modulo the wheel size so orders further ahead wait for their round.
+ * When a day passes its slot is walked once and late orders move to the
+ * overdue list, whose per day penalty is kept as a running sum. Lists are
+ * linked through the order's node so removing an order is O(1)
+ * */
+
+public class DeadlineWheel {
+
+	private static final int SLOTS = 64; //power of two, more than the usual deadline range
+
+	//an order's place on the wheel or the overdue list
+	static class Node {
+		private final int lateDay;
+		private final int penalty;
+		private boolean overdue;
+		private Node prev = this;
+		private Node next = this;
+
+		private Node(int lateDay, int penalty) {
+			this.lateDay = lateDay;
+			this.penalty = penalty;
+		}
+
+		private void unlink() {
+			prev.next = next;
+			next.prev = prev;
+			prev = this;
+			next = this;
+		}
+
+		private void linkBefore(Node head) {
+			prev = head.prev;
+			next = head;
+			head.prev.next = this;
+			head.prev = this;
+		}
+	}
+
+	private final Node[] slots = new Node[SLOTS]; //list heads, never hold an order
+	private final Node overdue = new Node(0, 0);
+	private int currentDay = 0;
+	private int overduePenalty = 0;
+
+	public DeadlineWheel() {
+		for(int i=0; i<SLOTS; i++) {
+			slots[i] = new Node(0, 0);
+		}
+	}
+
+	//order is charged its per day penalty from lateDay until it is removed
+	public void add(CustomerOrderStatus status, int lateDay, int penalty) {
+		Node node = new Node(lateDay, penalty);
+		status.setDeadlineNode(node);
+		if(lateDay <= currentDay) {
+			markOverdue(node);
+		}else {
+			node.linkBefore(slots[lateDay & (SLOTS - 1)]);
+		}
+	}
+
+	//order paid for or cancelled
+	public void remove(CustomerOrderStatus status) {
+		Node node = status.getDeadlineNode();
+		if(node == null) {
+			return;
+		}
+		node.unlink();
+		if(node.overdue) {
+			overduePenalty -= node.penalty;
+		}
+		status.setDeadlineNode(null);
+	}
+
+	//move orders that are late by the given day onto the overdue list, each slot is walked once a day
+	public void advanceTo(int day) {
+		int from = Math.max(currentDay + 1, day - SLOTS + 1); //a whole turn visits every slot
+		for(int d = from; d <= day; d++) {
+			Node head = slots[d & (SLOTS - 1)];
+			Node node = head.next;
+			while(node != head) {
+				Node next = node.next;
+				if(node.lateDay <= day) {
+					node.unlink();
+					markOverdue(node);
+				}
+				node = next;
+			}
+		}
+		currentDay = Math.max(currentDay, day);
+	}
+
+	private void markOverdue(Node node) {
+		node.overdue = true;
+		node.linkBefore(overdue);
+		overduePenalty += node.penalty;
+	}
+
+	//sum of the per day penalties of the overdue orders
+	public int getOverduePenalty() {
+		return overduePenalty;
+	}
+
+}
@@ -0,0 +1,39 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import smartphone_manufacturing.supply_chain_ontology.concepts.ComponentsOrder;
+
+/*
+ * Supplier's outstanding orders bucketed by delivery day. Taking a day's
+ * orders removes them so delivered orders are not kept
+ * */
+
+public class DeliveryCalendar {
+
+	private HashMap<Integer, ArrayList<ComponentsOrder>> ordersByDay = new HashMap<>();
+	private int outstanding = 0;
+
+	public void add(ComponentsOrder order) {
+		ordersByDay.computeIfAbsent(order.getDelivery(), d -> new ArrayList<>()).add(order);
+		outstanding++;
+	}
+
+	//orders to deliver on the given day, removed from the calendar
+	public List<ComponentsOrder> takeDue(int day) {
+		ArrayList<ComponentsOrder> due = ordersByDay.remove(day);
+		if(due == null) {
+			return Collections.emptyList();
+		}
+		outstanding -= due.size();
+		return due;
+	}
+
+	public int getOutstanding() {
+		return outstanding;
+	}
+
+}
@@ -0,0 +1,28 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Builds the orders booked for today, then the other ready orders earliest
+ * deadline first, skipping any order that does not fit in what is left of
+ * the day's capacity or stock
+ * */
+
+public class GreedyScheduler implements ProductionScheduler {
+
+	@Override
+	public List<CustomerOrderStatus> schedule(List<CustomerOrderStatus> ready, Inventory warehouse, int capacity, int day) {
+		ArrayList<CustomerOrderStatus> build = new ArrayList<>();
+		int remaining = capacity - ProductionScheduler.buildBooked(ready, warehouse, capacity, day, build);
+		for(CustomerOrderStatus status : ready) {
+			int quantity = status.getOrder().getQuantity();
+			if(!ProductionScheduler.isBooked(status, day) && quantity <= remaining && ProductionScheduler.reserve(status, warehouse)) {
+				build.add(status);
+				remaining -= quantity;
+			}
+		}
+		return build;
+	}
+
+}
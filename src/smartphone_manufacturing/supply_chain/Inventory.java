@@ -0,0 +1,86 @@
+package smartphone_manufacturing.supply_chain;
+
+/*
+ * Warehouse stock indexed by SKU id. Bulk operations take a bill of
+ * materials (one sku per part of a phone) and a phone quantity
+ * */
+
+public class Inventory {
+
+	private final int[] stock = new int[Sku.COUNT];
+	private final int[] reserved = new int[Sku.COUNT]; //held back for a specific order
+	private int totalUnits = 0;
+
+	public void add(int sku, int quantity) {
+		stock[sku] += quantity;
+		totalUnits += quantity;
+	}
+
+	public void add(int[] billOfMaterials, int quantity) {
+		for(int sku : billOfMaterials) {
+			add(sku, quantity);
+		}
+	}
+
+	public int get(int sku) {
+		return stock[sku];
+	}
+
+	//stock not reserved for an order
+	public int available(int sku) {
+		return stock[sku] - reserved[sku];
+	}
+
+	public boolean canBuild(int[] billOfMaterials, int quantity) {
+		for(int sku : billOfMaterials) {
+			if(available(sku) < quantity) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//hold components for an order, returns false and reserves nothing if short
+	public boolean reserve(int[] billOfMaterials, int quantity) {
+		if(!canBuild(billOfMaterials, quantity)) {
+			return false;
+		}
+		for(int sku : billOfMaterials) {
+			reserved[sku] += quantity;
+		}
+		return true;
+	}
+
+	public void release(int[] billOfMaterials, int quantity) {
+		for(int sku : billOfMaterials) {
+			reserved[sku] -= quantity;
+		}
+	}
+
+	//use unreserved components, returns false and consumes nothing if short
+	public boolean consume(int[] billOfMaterials, int quantity) {
+		if(!canBuild(billOfMaterials, quantity)) {
+			return false;
+		}
+		for(int sku : billOfMaterials) {
+			stock[sku] -= quantity;
+		}
+		totalUnits -= quantity * billOfMaterials.length;
+		return true;
+	}
+
+	//use components previously held with reserve()
+	public void consumeReserved(int[] billOfMaterials, int quantity) {
+		for(int sku : billOfMaterials) {
+			reserved[sku] -= quantity;
+			stock[sku] -= quantity;
+		}
+		totalUnits -= quantity * billOfMaterials.length;
+	}
+
+	//number of components in the warehouse, used for storage cost
+	public int getTotalUnits() {
+		return totalUnits;
+	}
+
+}
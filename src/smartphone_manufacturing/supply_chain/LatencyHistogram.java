@@ -0,0 +1,73 @@
+package smartphone_manufacturing.supply_chain;
+
+/*
+ * Histogram of durations in nanoseconds with one bucket per power of two.
+ * Recording is a few arithmetic operations and no allocation, percentiles
+ * are accurate to within a factor of two. Not thread safe, each agent
+ * records into its own histograms
+ * */
+
+public class LatencyHistogram {
+
+	private final long[] buckets = new long[64]; //bucket b holds values in [2^b, 2^(b+1))
+	private long count = 0;
+	private long sum = 0;
+	private long max = 0;
+
+	public void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		buckets[63 - Long.numberOfLeadingZeros(nanos | 1)]++;
+		count++;
+		sum += nanos;
+		if(nanos > max) {
+			max = nanos;
+		}
+	}
+
+	public void add(LatencyHistogram other) {
+		for(int b=0; b<buckets.length; b++) {
+			buckets[b] += other.buckets[b];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public void clear() {
+		java.util.Arrays.fill(buckets, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	//upper bound of the bucket holding the given fraction (0-1) of values
+	public long percentile(double fraction) {
+		if(count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(fraction * count);
+		long seen = 0;
+		for(int b=0; b<buckets.length; b++) {
+			seen += buckets[b];
+			if(seen >= rank) {
+				return Math.min(max, b == 63 ? Long.MAX_VALUE : (1L << (b + 1)) - 1);
+			}
+		}
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+}
@@ -0,0 +1,81 @@
+package smartphone_manufacturing.supply_chain;
+
+/*
+ * Manufacturer's running financial totals. Totals are updated as events
+ * happen (payments, supplies bought, orders opened and closed) so settling
+ * a day does not walk the warehouse or the order book. Late penalties
+ * come from a deadline wheel of the open orders
+ * */
+
+public class Ledger {
+
+	static final int STORAGE_COST_PER_UNIT = 5; //per component per day, also used to price orders
+
+	private final Inventory warehouse; //keeps its own unit count as stock comes in and is used
+	private DeadlineWheel deadlines = new DeadlineWheel();
+
+	private int revenue = 0;
+	private int supplyCost = 0;
+	private int storageCost = 0;
+	private int latePenalty = 0;
+	private int totalProfit = 0;
+
+	public Ledger(Inventory warehouse) {
+		this.warehouse = warehouse;
+	}
+
+	//order can now be charged late penalties, until it is closed
+	public void orderOpened(CustomerOrderStatus status) {
+		deadlines.add(status, status.getDeadlineDay() + 1, status.getOrder().getPerDayPenalty());
+	}
+
+	//order paid for or cancelled, no more penalties
+	public void orderClosed(CustomerOrderStatus status) {
+		deadlines.remove(status);
+	}
+
+	public void paymentReceived(int amount) {
+		revenue += amount;
+	}
+
+	public void suppliesBought(int cost) {
+		supplyCost += cost;
+	}
+
+	//end of day totals, only the wheel slot for the day is visited
+	public void settle(int day) {
+		deadlines.advanceTo(day);
+		storageCost = warehouse.getTotalUnits() * STORAGE_COST_PER_UNIT;
+		latePenalty = deadlines.getOverduePenalty();
+		totalProfit += revenue - storageCost - latePenalty - supplyCost;
+	}
+
+	//clear the day's totals, running totals are kept
+	public void startDay() {
+		revenue = 0;
+		supplyCost = 0;
+		storageCost = 0;
+		latePenalty = 0;
+	}
+
+	public int getRevenue() {
+		return revenue;
+	}
+
+	public int getSupplyCost() {
+		return supplyCost;
+	}
+
+	public int getStorageCost() {
+		return storageCost;
+	}
+
+	public int getLatePenalty() {
+		return latePenalty;
+	}
+
+	public int getTotalProfit() {
+		return totalProfit;
+	}
+
+}
@@ -1,43 +1,182 @@
 package smartphone_manufacturing.supply_chain;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import jade.core.*;
 import jade.core.Runtime;
 import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
+import jade.wrapper.ControllerException;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
+
+/*
+ * Starts the simulation. Run with no arguments for the original GUI setup, or e.g.
+ * --headless --customers=1000 --manufacturers=2 --days=200 --suppliers=1,2 --codec=leap --seed=42 (or --config=run.properties)
+ * for a batch run that exits with a throughput summary. --trace=file replays orders written by TraceExporter.
+ * --containers=N spreads customers and suppliers over N peripheral container jvms on this machine,
+ * --ticker-fanout=N collects "done" through a tree of sub-tickers with N children each
+ * */
 
 public class Main {
-	
+
+	public static final int MAIN_CONTAINER = -1; //container index of agents started in the main container
+
 	public static void main(String[] args) {
-		
+
 		Profile myProfile = new ProfileImpl();
 		Runtime myRuntime = Runtime.instance();
-		
+		SimulationConfig config = null;
+		ContainerController myContainer = null;
+
 		try {
-			ContainerController myContainer = myRuntime.createMainContainer(myProfile);	
-			AgentController rma = myContainer.createNewAgent("rma", "jade.tools.rma.rma", null);
-			rma.start();
-				int customers = 3;
-				AgentController customerAgent;
-				for(int j=0; j < customers; j++) {
-					customerAgent = myContainer.createNewAgent("customer-" +j , CustomerAgent.class.getCanonicalName(), null);
-					customerAgent.start();
-				}
-				//start supplier agents
-				AgentController supplierOne = myContainer.createNewAgent("supplier-1" , SupplierAgent.class.getCanonicalName(), new Object[] {1});
-				supplierOne.start();
-				AgentController supplierTwo = myContainer.createNewAgent("supplier-2" , SupplierAgent.class.getCanonicalName(), new Object[] {2});
-				supplierTwo.start();
-				//start manufacturer agent
-				AgentController manufacturerAgent = myContainer.createNewAgent("manufacturer" , ManufacturerAgent.class.getCanonicalName(), null);
-				manufacturerAgent.start();
-				//start ticker agent
-				AgentController tickerAgent = myContainer.createNewAgent("ticker" , TickerAgent.class.getCanonicalName(), null);
-				tickerAgent.start();
-			
+			config = SimulationConfig.load(args);
+			//content language used by every agent in this vm
+			System.setProperty(ContentCodecs.CODEC_PROPERTY, config.getCodec());
+			System.setProperty(StageStats.MODE_PROPERTY, config.getStageStats());
+			System.setProperty(DailyReportWriter.REPORT_DIR_PROPERTY, config.getReportDir());
+			if(config.isHeadless()) {
+				//exit vm when the platform is killed at the end of the run
+				myRuntime.setCloseVM(true);
+				System.out.println(config); //includes the seed needed to repeat the run
+			}
+			myProfile.setParameter(Profile.MAIN_PORT, String.valueOf(config.getMainPort()));
+			myContainer = myRuntime.createMainContainer(myProfile);
+			if(!config.isHeadless()) {
+				AgentController rma = myContainer.createNewAgent("rma", "jade.tools.rma.rma", null);
+				rma.start();
+			}
+			startPeripherals(config, args);
+			startAgents(myContainer, config, MAIN_CONTAINER);
+			int population = population(config);
+			//start ticker agent, it waits for the whole population to be ready
+			AgentController tickerAgent = myContainer.createNewAgent("ticker" , TickerAgent.class.getCanonicalName(),
+					new Object[] {config.getDays(), population, config.getTickerFanout()});
+			tickerAgent.start();
+
+			if(config.isHeadless()) {
+				SimulationStats.awaitFinish();
+				System.out.println(SimulationStats.summary());
+				myContainer.getPlatformController().kill();
+			}
+
 		}catch(Exception e) {
 			System.out.println("Exception starting agent: " + e.toString());
+			e.printStackTrace();
+			//a batch run must not hang or exit 0 half started
+			if(config == null || config.isHeadless()) {
+				if(myContainer != null) {
+					myRuntime.setCloseVM(false); //exit with the failure code below, not when the platform stops
+					try {
+						myContainer.getPlatformController().kill();
+					}catch(ControllerException ce) {
+						ce.printStackTrace();
+					}
+				}
+				System.exit(1);
+			}
+		}
+
+	}
+
+	//customers, suppliers and manufacturers in the whole run
+	public static int population(SimulationConfig config) {
+		return config.getCustomers() + config.getSupplierProfiles().length + config.getManufacturers();
+	}
+
+	//customers and suppliers are dealt round robin over the peripheral containers,
+	//the manufacturers and ticker always stay in the main container
+	public static int containerFor(int agentIndex, SimulationConfig config) {
+		return config.getContainers() == 0 ? MAIN_CONTAINER : agentIndex % config.getContainers();
+	}
+
+	//start one jvm per peripheral container, they are killed with the platform at the end of the run
+	private static void startPeripherals(SimulationConfig config, String[] args) throws IOException {
+		String javaBinary = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<Process> peripherals = new ArrayList<>();
+		for(int i=0; i < config.getContainers(); i++) {
+			List<String> command = new ArrayList<>();
+			command.add(javaBinary);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(PeripheralLauncher.class.getCanonicalName());
+			command.addAll(Arrays.asList(args));
+			//same seed in every jvm so orders don't depend on placement
+			command.add("--seed=" + config.getSeed());
+			command.add("--container-index=" + i);
+			peripherals.add(new ProcessBuilder(command).inheritIO().start());
+		}
+		java.lang.Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for(Process peripheral : peripherals) {
+				peripheral.destroy();
+			}
+		}));
+	}
+
+	//create this container's customers, suppliers and manufacturers in parallel, returns number of agents
+	public static int startAgents(ContainerController container, SimulationConfig config, int containerIndex) throws Exception {
+		List<String> names = new ArrayList<>();
+		List<String> classes = new ArrayList<>();
+		List<Object[]> arguments = new ArrayList<>();
+		//one mapping of the trace shared by every customer
+		OrderTrace trace = null;
+		if(config.getTrace() != null) {
+			trace = OrderTrace.open(Paths.get(config.getTrace()));
+			if(trace.getCustomers() < config.getCustomers() || trace.getDays() < config.getDays()) {
+				throw new IllegalArgumentException("Order trace has " + trace.getCustomers() + " customers x "
+						+ trace.getDays() + " days, run needs " + config.getCustomers() + " x " + config.getDays());
+			}
+		}
+		for(int j=0; j < config.getCustomers(); j++) {
+			if(containerFor(j, config) != containerIndex) {
+				continue;
+			}
+			names.add("customer-" + j);
+			classes.add(CustomerAgent.class.getCanonicalName());
+			arguments.add(new Object[] {config.getSeed(), j, config.getWorkload(), trace});
+		}
+		int[] profiles = config.getSupplierProfiles();
+		for(int j=0; j < profiles.length; j++) {
+			if(containerFor(j, config) != containerIndex) {
+				continue;
+			}
+			names.add("supplier-" + (j + 1));
+			classes.add(SupplierAgent.class.getCanonicalName());
+			arguments.add(new Object[] {profiles[j]});
+		}
+		if(containerIndex == MAIN_CONTAINER) {
+			for(int j=0; j < config.getManufacturers(); j++) {
+				//a single manufacturer keeps its original name
+				names.add(config.getManufacturers() == 1 ? "manufacturer" : "manufacturer-" + (j + 1));
+				classes.add(ManufacturerAgent.class.getCanonicalName());
+				arguments.add(new Object[] {config.getScheduler(), config.getDailyCapacity()});
+			}
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(config.getCreationThreads());
+		try {
+			List<Future<?>> started = new ArrayList<>();
+			for(int i=0; i < names.size(); i++) {
+				final int index = i;
+				started.add(pool.submit(() -> {
+					AgentController agent = container.createNewAgent(names.get(index), classes.get(index), arguments.get(index));
+					agent.start();
+					return null;
+				}));
+			}
+			for(Future<?> future : started) {
+				future.get();
+			}
+		}finally {
+			pool.shutdown();
 		}
-	
+		return names.size();
 	}
 
 }
@@ -4,7 +4,6 @@ import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.Behaviour;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
 import jade.core.behaviours.SequentialBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAException;
@@ -13,24 +12,23 @@ import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 
 import jade.content.Concept;
 import jade.content.ContentElement;
 import jade.content.lang.Codec;
 import jade.content.lang.Codec.CodecException;
-import jade.content.lang.sl.SLCodec;
 import jade.content.onto.Ontology;
 import jade.content.onto.OntologyException;
 import jade.content.onto.basic.Action;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
 import smartphone_manufacturing.supply_chain_ontology.ManufacturingOntology;
 import smartphone_manufacturing.supply_chain_ontology.actions.ManufactureOrder;
 import smartphone_manufacturing.supply_chain_ontology.actions.SellComponents;
@@ -40,6 +38,7 @@ import smartphone_manufacturing.supply_chain_ontology.concepts.SmallPhone;
 import smartphone_manufacturing.supply_chain_ontology.concepts.Phablet;
 import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
 import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
+import smartphone_manufacturing.supply_chain_ontology.concepts.ShipmentLine;
 import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletBattery;
 import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletScreen;
 import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.RAM;
@@ -47,45 +46,54 @@ import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneCompone
 import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallScreen;
 import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.Storage;
 import smartphone_manufacturing.supply_chain_ontology.predicates.RequestManufacture;
-import smartphone_manufacturing.supply_chain_ontology.predicates.ComponentsSent;
-import smartphone_manufacturing.supply_chain_ontology.predicates.ComponentsInStock;
+import smartphone_manufacturing.supply_chain_ontology.predicates.ShipmentManifest;
+import smartphone_manufacturing.supply_chain_ontology.predicates.DetailsNotModified;
 import smartphone_manufacturing.supply_chain_ontology.predicates.OrderShipped;
 import smartphone_manufacturing.supply_chain_ontology.predicates.PaymentSent;
 import smartphone_manufacturing.supply_chain_ontology.predicates.SentSupplierDetails;
 
 public class ManufacturerAgent extends Agent {
 
-	private Codec codec = new SLCodec();
+	private Codec codec = ContentCodecs.selected(); //language for outgoing messages
 	private AID tickerAgent;
 
 	private int day = 1;
 	private ArrayList<AID> customers = new ArrayList<>();
-	private HashMap<Integer, Integer> warehouse = new HashMap<>(); // components and their qty in warehouse
-	private HashMap<AID, SupplierType> suppliers = new HashMap<>();
-	private ArrayList<CustomerOrderStatus> orderList = new ArrayList<>();
-	private ArrayList<CustomerOrderStatus> approvedOrders = new ArrayList<>();
-	private ArrayList<CustomerOrderStatus> confirmedOrders = new ArrayList<>();
-	private  ArrayList<CustomerOrderStatus> gotComponents = new ArrayList<>();
+	private Inventory warehouse = new Inventory(); // components and their qty in warehouse
+	private HashMap<AID, SupplierType> suppliers = new HashMap<>(); // suppliers on the yellow pages today
+	private HashMap<AID, SupplierType> catalogueCache = new HashMap<>(); // price lists kept between days
+	private SourcingOptimiser sourcing = new SourcingOptimiser(); // cheapest supplier of each component by lead time
+	private OrderBook orderBook = new OrderBook(); // open customer orders by id, profit, deadline and delivery day
+	private StageStats stageStats; // timings of the daily stages
+	private DailyReportWriter dailyReport; // daily totals written to csv off the agent thread
+	private Ledger ledger = new Ledger(warehouse); // running revenue, costs and late penalties
+	private HashMap<String, PurchaseOrder> purchases = new HashMap<>(); // agreed purchase orders by id until delivered
+	private int purchaseSequence = 0;
+	private ProductionScheduler scheduler = new ProfitScheduler(); // picks the ready orders built each day
+	private int dailyCapacity = 50; // phones that can be built in a day
+	private AdmissionEngine admission; // capacity calendar and free stock for accepting orders
 
 
 	//keep track of daily variable outcomes
-	private int todaysProfit = 0;
-	private int latePenalty = 0;
-	private int storageCost = 0;
-	private int costOfSupplies = 0;
-	private int totalProfit = 0;
 	private int todaysPhoneQuantity = 0;
 	private int approvedOrdersNum = 0;
 	private int accepted = 0;
-	private int componentDelivery = 0;
 
 	//get ontology
 	private Ontology ontology = ManufacturingOntology.getInstance();
 
 	@Override protected void setup() {
 		//set up ontology
-		getContentManager().registerLanguage(codec);
-		getContentManager().registerOntology(ontology);
+		ContentCodecs.register(getContentManager());
+		stageStats = new StageStats(getLocalName());
+		dailyReport = new DailyReportWriter(getLocalName());
+		//scheduler name and daily capacity
+		Object[] args = getArguments();
+		if(args != null && args.length >= 2) {
+			scheduler = ProductionScheduler.named((String) args[0]);
+			dailyCapacity = (Integer) args[1];
+		}
+		admission = new AdmissionEngine(warehouse, dailyCapacity);
 
 		//add agent to yp
 		DFAgentDescription dfd = new DFAgentDescription();
@@ -103,10 +111,17 @@ public class ManufacturerAgent extends Agent {
 
 		//add behaviour to sync agent with ticker agent and global day timing
 		addBehaviour(new TickerWaitBehaviour(this));
+		addBehaviour(new ReceiveCatalogueUpdates(this));
+		//tell ticker agent this agent is ready to start
+		addBehaviour(new ReadySignalBehaviour(this));
 	}
 
 	@Override
 	protected void takeDown() {
+		stageStats.dayFinished(day - 1);
+		stageStats.runFinished();
+		dailyReport.close();
+		System.out.printf("%s total profit = £%d.00%n", getLocalName(), ledger.getTotalProfit());
 		//deregisted from yp
 		try {
 			DFService.deregister(this);
@@ -127,11 +142,15 @@ public class ManufacturerAgent extends Agent {
 			ACLMessage msg = myAgent.receive(mt);
 
 			if(msg != null) {
-				if(tickerAgent == null) {
-					tickerAgent = msg.getSender();
-				}
+				//ticker or the sub-ticker collecting this agent's "done", can change between days
+				tickerAgent = msg.getSender();
 
 				if(msg.getContent().equals("new-day")) {
+					SimulationStats.dayStarted(day);
+					if(day > 1) {
+						stageStats.dayFinished(day - 1);
+					}
+					admission.startDay(day);
 					SequentialBehaviour dailyActivity = new SequentialBehaviour();
 					//find agents on yellow pages
 					dailyActivity.addSubBehaviour(new GetCustomers(myAgent));
@@ -160,50 +179,69 @@ public class ManufacturerAgent extends Agent {
 	}
 
 	@SuppressWarnings("serial")
-	public class GetSuppliers extends OneShotBehaviour{
+	public class GetSuppliers extends StageBehaviour {
 
 		public GetSuppliers(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 
 		@Override
-		public void action() {
+		protected void stageAction() {
 			DFAgentDescription supplyTemplate = new DFAgentDescription();
 			ServiceDescription supplySd = new ServiceDescription();
 			supplySd.setType("supply-agent");
 			supplyTemplate.addServices(supplySd);
 
 			try {
-				suppliers.clear();
 				DFAgentDescription[] supplyAgents = DFService.search(myAgent, supplyTemplate);
+				HashMap<AID, SupplierType> found = new HashMap<>();
 				if(supplyAgents.length > 0) {
 					for(int i=0; i<supplyAgents.length; i++) {
-						suppliers.put(supplyAgents[i].getName(), new SupplierType(supplyAgents[i].getName())); //this is the supply agents AID
-						//System.out.println("supplier " + i + " " + supplyAgents[i].getName());
+						AID supplier = supplyAgents[i].getName(); //this is the supply agents AID
+						//reuse cached catalogue, it is checked again if the supplier went away and came back
+						SupplierType cached = catalogueCache.get(supplier);
+						if(cached == null) {
+							cached = new SupplierType(supplier);
+							catalogueCache.put(supplier, cached);
+						}else if(!suppliers.containsKey(supplier)) {
+							cached.setValidated(false);
+						}
+						found.put(supplier, cached);
 					}
 				}else {
 					System.out.println("*** Cannot find suppliers ***");
 				}
+				if(!found.keySet().equals(suppliers.keySet())) {
+					suppliers = found;
+					sourcing.rebuild(suppliers.values());
+				}
 
 			}catch(FIPAException e) {
 				e.printStackTrace();
 			}
 		}
+
+		@Override
+		public boolean done() {
+			return true;
+		}
 	}
 
-	//get prices from supplier pricing claass on day 1
-	public class GetSupplierDetails extends Behaviour {
+	//get prices from suppliers whose catalogue is not cached or needs checking,
+	//later changes are pushed by the suppliers (see ReceiveCatalogueUpdates)
+	public class GetSupplierDetails extends StageBehaviour {
 
 		public GetSupplierDetails(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 
 		MessageTemplate mt;
 		private int step = 0;
+		private int requested = 0;
 		private int received = 0;
 
 		@Override
-		public void action() {
+		protected void stageAction() {
 			switch (step) {
 			case 0:
 				ACLMessage supplierMsg = new ACLMessage(ACLMessage.REQUEST);
@@ -218,12 +256,18 @@ public class ManufacturerAgent extends Agent {
 				request.setAction(sendSupplierDetails);
 
 				try {
-					for(AID supplier : suppliers.keySet()) {
-						supplierMsg.addReceiver(supplier);
-						request.setActor(supplier);
+					for(SupplierType supplier : suppliers.values()) {
+						if(supplier.isValidated()) {
+							continue;
+						}
+						//conditional request, supplier answers not modified if version is current
+						sendSupplierDetails.setKnownVersion(supplier.getVersion());
+						supplierMsg.addReceiver(supplier.getSupplier());
+						request.setActor(supplier.getSupplier());
 						getContentManager().fillContent(supplierMsg, request);
-						send(supplierMsg);
-						supplierMsg.removeReceiver(supplier);
+						SimulationStats.send(myAgent, supplierMsg);
+						supplierMsg.removeReceiver(supplier.getSupplier());
+						requested ++;
 					}
 					step ++;
 				}catch(CodecException ce) {
@@ -243,23 +287,12 @@ public class ManufacturerAgent extends Agent {
 						ce = getContentManager().extractContent(suppMsg);
 
 						if(ce instanceof SentSupplierDetails) {
-							SentSupplierDetails supplierDetails = (SentSupplierDetails) ce;
-							HashMap<PhoneComponent, Integer> prices = new HashMap<>();
-							ArrayList<PhoneComponent> Components = supplierDetails.getPhoneComponents();
-							ArrayList<Long> ComponentPrices = supplierDetails.getComponentPrices();
-
-							for(int i=0; i<Components.size(); i++) {
-								PhoneComponent component = Components.get(i);
-								int price = ((Long)ComponentPrices.get(i)).intValue();
-								prices.put(component, price);
-							}
-
-							AID supplier = supplierDetails.getSupplier();
-							int deilveryDays = supplierDetails.getDevlieryDays();
-							suppliers.get(supplier).setPrices(prices);
-							suppliers.get(supplier).setDelivery(deilveryDays);
+							updateCatalogue((SentSupplierDetails) ce);
+							received ++;
+						}else if(ce instanceof DetailsNotModified) {
+							//cached catalogue is still current
+							catalogueCache.get(((DetailsNotModified) ce).getSupplier()).setValidated(true);
 							received ++;
-
 						}else {
 							System.out.println("Agent: " + myAgent.getAID() + "Received wrong msg from supplier");
 						}
@@ -277,18 +310,74 @@ public class ManufacturerAgent extends Agent {
 
 		@Override
 		public boolean done() {
-			return received == suppliers.size();
+			return step == 1 && received == requested;
 		}
 	}//end of behaviour
 
-	public class GetCustomers extends OneShotBehaviour{
+	//catalogues pushed by suppliers when their prices or delivery change
+	@SuppressWarnings("serial")
+	public class ReceiveCatalogueUpdates extends CyclicBehaviour {
 
-		public GetCustomers(Agent a) {
+		public ReceiveCatalogueUpdates(Agent a) {
 			super(a);
 		}
 
 		@Override
 		public void action() {
+			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM), MessageTemplate.MatchConversationId("supplier-details-update"));
+			ACLMessage msg = receive(mt);
+			if(msg != null) {
+				try {
+					ContentElement ce = getContentManager().extractContent(msg);
+					if(ce instanceof SentSupplierDetails) {
+						updateCatalogue((SentSupplierDetails) ce);
+					}else {
+						System.out.println("Agent: " + myAgent.getAID() + "Received wrong msg from supplier");
+					}
+				}catch(CodecException ce) {
+					ce.printStackTrace();
+				}catch(OntologyException oe) {
+					oe.printStackTrace();
+				}
+			}else {
+				block();
+			}
+		}
+	}
+
+	//store a supplier's price list and delivery days with their version
+	private void updateCatalogue(SentSupplierDetails supplierDetails) {
+		HashMap<PhoneComponent, Integer> prices = new HashMap<>();
+		ArrayList<PhoneComponent> Components = supplierDetails.getPhoneComponents();
+		ArrayList<Long> ComponentPrices = supplierDetails.getComponentPrices();
+
+		for(int i=0; i<Components.size(); i++) {
+			PhoneComponent component = Components.get(i);
+			int price = ((Long)ComponentPrices.get(i)).intValue();
+			prices.put(component, price);
+		}
+
+		AID supplier = supplierDetails.getSupplier();
+		SupplierType cached = catalogueCache.get(supplier);
+		if(cached == null) {
+			cached = new SupplierType(supplier);
+			catalogueCache.put(supplier, cached);
+		}
+		cached.setPrices(prices);
+		cached.setDelivery(supplierDetails.getDevlieryDays());
+		cached.setVersion(supplierDetails.getVersion());
+		cached.setValidated(true);
+		sourcing.rebuild(suppliers.values());
+	}
+
+	public class GetCustomers extends StageBehaviour {
+
+		public GetCustomers(Agent a) {
+			super(a, stageStats);
+		}
+
+		@Override
+		protected void stageAction() {
 			DFAgentDescription customerTemplate = new DFAgentDescription();
 			ServiceDescription sd = new ServiceDescription();
 			sd.setType("customer-agent");
@@ -304,21 +393,26 @@ public class ManufacturerAgent extends Agent {
 			}catch(FIPAException e) {
 				e.printStackTrace();
 			}
-		}	
+		}
+
+		@Override
+		public boolean done() {
+			return true;
+		}
 	}
 
 	//decide which orders to accept or reject
-	public class SelectCustomerOrders extends Behaviour{
+	public class SelectCustomerOrders extends StageBehaviour {
 
 		public SelectCustomerOrders(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 		private CustomerOrderStatus orderStatus;
 		private int replies = 0;
 		
 
 		@Override 
-		public void action(){
+		protected void stageAction() {
 			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.QUERY_IF), MessageTemplate.MatchConversationId("customer-order-request"));
 			ACLMessage msg = receive(mt);
 
@@ -333,53 +427,43 @@ public class ManufacturerAgent extends Agent {
 						orderStatus = new CustomerOrderStatus(order);
 						orderStatus.setCustomer(msg.getSender());
 
-						AID quickestSupplier = null;
-						SupplierType currentSupplier = null;
-						int profit = 0;
-						int cost = 0; //cost of order by calculating component prices from quickest supplier
-						int lowestDelivery = 10; //this is higher than both suppliers delivery days
-
-						// use quickest supplier
-						for (SupplierType supplier : suppliers.values()) {
-							int deliveryDays = supplier.getDelivery();
-							if(deliveryDays < lowestDelivery) {
-								quickestSupplier = supplier.getSupplier();
-								currentSupplier = supplier;
-								lowestDelivery = deliveryDays;
-								componentDelivery = lowestDelivery;
-							}
-
-						}
+						orderStatus.setDayOrdered(day);
+						int[] billOfMaterials = orderStatus.getBillOfMaterials();
+						int quantity = orderStatus.getOrder().getQuantity();
 
-						//search supplier price list to get cost of order
-						for(Map.Entry<PhoneComponent, Integer> entry : currentSupplier.getPrices().entrySet()) {
-							PhoneComponent comp = entry.getKey();
-							for(PhoneComponent component : orderStatus.getOrder().getSmartPhone().getPhoneComponents()) {
-								if(comp.toString().contentEquals(component.toString())) {
-									int price = entry.getValue();
-									cost = cost + price;
-								}
+						//price the components at each lead time, counting storage on parts that arrive before
+						//the slowest, and take the lead time that leaves the most profit after late penalties.
+						//Accept if it can be built in time, or late but still at a profit
+						ACLMessage reply = msg.createReply();
+						reply.setPerformative(ACLMessage.DISCONFIRM);
+						AdmissionEngine.Plan bestPlan = null;
+						int bestOption = -1;
+						for(int option=0; option<sourcing.getOptionCount(); option++) {
+							int cost = sourcing.quote(option, billOfMaterials, quantity);
+							if(cost < 0) {
+								continue; //quicker suppliers don't sell every component
+							}
+							AdmissionEngine.Plan plan = admission.plan(orderStatus, cost,
+									sourcing.holdingCost(option, billOfMaterials, quantity), sourcing.getLeadTime(option));
+							if(plan != null && (bestPlan == null || plan.getProfit() > bestPlan.getProfit())) {
+								bestPlan = plan;
+								bestOption = option;
 							}
 						}
-						cost = cost*(orderStatus.getOrder().getQuantity());
-						profit = (int) ((orderStatus.getOrder().getPrice()) - cost);
-
-
-						ACLMessage reply = msg.createReply();
-						if(profit > 0 && orderStatus.getOrder().getDaysToDeadline() > 1 && gotComponents.size() < 3) {
-							orderStatus.setSupplier(quickestSupplier);
-							orderStatus.setPrice(cost);
-							orderStatus.setDayOrdered(day);
+						if(bestPlan != null) {
+							admission.book(orderStatus, bestPlan);
+							orderStatus.setPartSuppliers(sourcing.suppliersFor(bestOption, billOfMaterials));
+							orderStatus.setPartPrices(sourcing.pricesFor(bestOption, billOfMaterials));
+							//nothing to buy if built from stock
+							orderStatus.setPrice(orderStatus.isComponentsReserved() ? 0 : sourcing.quote(bestOption, billOfMaterials, quantity));
 							orderStatus.setOrderCompleted(false);
-							orderList.add(orderStatus);
-							approvedOrders.add(orderStatus);
+							orderBook.approve(orderStatus);
+							ledger.orderOpened(orderStatus);
 							accepted++;
 							reply.setPerformative(ACLMessage.CONFIRM);
-						}else {
-							reply.setPerformative(ACLMessage.DISCONFIRM);
 						}
 						reply.setConversationId("customer-order-response");
-						myAgent.send(reply);
+						SimulationStats.send(myAgent, reply);
 						replies++;
 					}else {
 						System.out.println("Agent: " + myAgent.getAID() + "Received wrong msg from customer");
@@ -392,7 +476,7 @@ public class ManufacturerAgent extends Agent {
 			}else {
 				block();
 			}
-			approvedOrdersNum = approvedOrders.size();
+			approvedOrdersNum = orderBook.getApprovedCount();
 		}
 
 		@Override
@@ -401,17 +485,18 @@ public class ManufacturerAgent extends Agent {
 		}	
 	}
 
-	public class ReceiveCustomerOrders extends Behaviour{
+	public class ReceiveCustomerOrders extends StageBehaviour {
 		private int received = 0;
-		private int approvedToConfirmed = 0;
 		public ReceiveCustomerOrders(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 
 		@Override
-		public void action() {
+		protected void stageAction() {
 			if(accepted > 0) {
-				MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST), MessageTemplate.MatchConversationId("customer-order-sent"));
+				//customer either orders from us or cancels because it chose another manufacturer
+				MessageTemplate mt = MessageTemplate.and(MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.REQUEST), MessageTemplate.MatchPerformative(ACLMessage.CANCEL)),
+						MessageTemplate.MatchConversationId("customer-order-sent"));
 				ACLMessage customerMsg = receive(mt);
 
 				if(customerMsg != null) {
@@ -423,18 +508,20 @@ public class ManufacturerAgent extends Agent {
 							Concept action = ((Action)ce).getAction();
 							if(action instanceof ManufactureOrder) {
 								ManufactureOrder manufactureOrder = (ManufactureOrder)action;
-								if(approvedOrders.size() > 0) {
-									received ++;
-									for(CustomerOrderStatus approvedOrder : approvedOrders) {
-										if(manufactureOrder.getOrder().getOrderID().contentEquals(approvedOrder.getOrder().getOrderID())) {
-											confirmedOrders.add(approvedOrder);
-											approvedToConfirmed++;
-										}
+								if(customerMsg.getPerformative() == ACLMessage.CANCEL) {
+									CustomerOrderStatus cancelled = orderBook.cancel(manufactureOrder.getOrder().getOrderID());
+									if(cancelled != null) {
+										ledger.orderClosed(cancelled);
+										admission.withdraw(cancelled);
 									}
-									if(approvedOrdersNum == approvedToConfirmed) {
-										approvedOrders.clear();
+								}else {
+									//moves the approved order to the confirmed queue, or straight to be built if its components are in stock
+									CustomerOrderStatus confirmed = orderBook.confirm(manufactureOrder.getOrder().getOrderID());
+									if(confirmed != null && confirmed.isComponentsReserved()) {
+										orderBook.markReadyFromStock(confirmed);
 									}
 								}
+								received ++;
 
 							}
 						}
@@ -459,181 +546,179 @@ public class ManufacturerAgent extends Agent {
 		}	
 	}
 
-	//requesting and ordering components in one behaviour as they apply to same order
-	public class OrderComponents extends Behaviour {
+	//buying the components of every confirmed order due to be bought today, timed by admission so they
+	//arrive on the order's build day. The parts each supplier sells are added up into one purchase order
+	//a day carrying the payment, replies are matched to their request by in-reply-to so the day's
+	//buying takes one round trip and one message per supplier
+	public class OrderComponents extends StageBehaviour {
 
 		public OrderComponents(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 
-		private int step = 0;
-		private CustomerOrderStatus orderStatus;
-		private AID supplier;
+		private HashMap<String, PurchaseOrder> awaitingAgreement = new HashMap<>(); //by purchase order id, the request's reply-with
+		private boolean sent = false;
 
 		@Override
-		public void action() {
-			switch(step) {
-			case 0:
-				if (confirmedOrders.size() == 0) {
-					break;
-				}
-				//sort confirmed orders by most prominent deadline then profit to avoid delivery costs 
-				//Collections.sort(confirmedOrders, CustomerOrderStatus.deliveryDays);
-				Collections.sort(confirmedOrders, CustomerOrderStatus.profit);
-				orderStatus = confirmedOrders.get(0);
-				supplier = orderStatus.getSupplier();
-				ComponentsInStock componentsInStock = new ComponentsInStock(); //new request for components
-
-				ACLMessage askSupplierMsg = new ACLMessage(ACLMessage.QUERY_IF);
-				askSupplierMsg.setLanguage(codec.getName());
-				askSupplierMsg.setOntology(ontology.getName());
-				askSupplierMsg.setConversationId("sell-components-request");
-				askSupplierMsg.addReceiver(supplier);
-				componentsInStock.setSupplier(supplier);
-				componentsInStock.setQuantity(orderStatus.getOrder().getQuantity());
-				try {
-					orderStatus.setComponentDeliveryDate(day + componentDelivery);
-					componentsInStock.setComponents(orderStatus.getOrder().getSmartPhone().getPhoneComponents());
-					getContentManager().fillContent(askSupplierMsg, componentsInStock);
-					send(askSupplierMsg);
-					step++;
-				}catch(CodecException ce) {
-					ce.printStackTrace();
-				}catch(OntologyException oe) {
-					oe.printStackTrace();
-				}catch(Exception e) {
-					e.printStackTrace();
-				}
-				break;
-
-			case 1:
-				MessageTemplate responseMt = MessageTemplate.and(
-						MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.CONFIRM), MessageTemplate.MatchPerformative(ACLMessage.DISCONFIRM)), MessageTemplate.MatchConversationId("sell-components-response"));
-				ACLMessage response = receive(responseMt);
-				if(response != null) {
-					//if confirmed then do following
-					if (response.getPerformative() == ACLMessage.CONFIRM) {
-						ACLMessage orderReq = new ACLMessage(ACLMessage.REQUEST);
-						orderReq.setOntology(ontology.getName());
-						orderReq.setLanguage(codec.getName());
-						orderReq.setConversationId("buy-components");
-						orderReq.addReceiver(supplier);
-						try {
-							SellComponents sellComps = new SellComponents();
-							sellComps.setManufacturer(myAgent.getAID());
-							sellComps.setComponents(orderStatus.getOrder().getSmartPhone().getPhoneComponents());
-							sellComps.setQuantity(orderStatus.getOrder().getQuantity());
-							sellComps.setOrderId(orderStatus.getOrder().getOrderID());
-							Action request = new Action();
-							request.setAction(sellComps);
-							request.setActor(response.getSender());
-
-							getContentManager().fillContent(orderReq, request);
-							send(orderReq);
-							confirmedOrders.remove(0);
-							step++;
-
-						}catch(CodecException ce) {
-							ce.printStackTrace();
-						}catch(OntologyException oe) {
-							oe.printStackTrace();
-						}catch(Exception e) {
-							e.printStackTrace();
+		protected void stageAction() {
+			if(!sent) {
+				sent = true;
+				//add up the parts of today's confirmed orders by supplier
+				LinkedHashMap<AID, PurchaseOrder> todaysPurchases = new LinkedHashMap<>();
+				for(CustomerOrderStatus orderStatus : orderBook.takeConfirmed(day)) {
+					LinkedHashMap<AID, ArrayList<Integer>> parts = partsBySupplier(orderStatus);
+					orderStatus.setPartsOutstanding(parts.size());
+					for(Entry<AID, ArrayList<Integer>> part : parts.entrySet()) {
+						PurchaseOrder purchase = todaysPurchases.get(part.getKey());
+						if(purchase == null) {
+							purchase = new PurchaseOrder(getLocalName() + "-po-" + (++purchaseSequence), part.getKey());
+							todaysPurchases.put(part.getKey(), purchase);
 						}
-					}else {
-						// if not confirmed then remove order
-						confirmedOrders.remove(orderStatus);
-						step = 0;
+						purchase.allocate(orderStatus, part.getValue());
 					}
-				}else {
-					block();
 				}
 
+				for(PurchaseOrder purchase : todaysPurchases.values()) {
+					ACLMessage orderReq = new ACLMessage(ACLMessage.REQUEST);
+					orderReq.setOntology(ontology.getName());
+					orderReq.setLanguage(codec.getName());
+					orderReq.setConversationId("buy-components");
+					orderReq.addReceiver(purchase.getSupplier());
+					orderReq.setReplyWith(purchase.getId());
+					SellComponents sellComps = new SellComponents();
+					sellComps.setManufacturer(myAgent.getAID());
+					sellComps.setLines(purchase.lines());
+					sellComps.setOrderId(purchase.getId());
+					sellComps.setPrice(purchase.getCost());
+					Action request = new Action();
+					request.setAction(sellComps);
+					request.setActor(purchase.getSupplier());
+					try {
+						getContentManager().fillContent(orderReq, request);
+						SimulationStats.send(myAgent, orderReq);
+						awaitingAgreement.put(purchase.getId(), purchase);
+					}catch(CodecException ce) {
+						ce.printStackTrace();
+					}catch(OntologyException oe) {
+						oe.printStackTrace();
+					}catch(Exception e) {
+						e.printStackTrace();
+					}
+				}
+			}
 
-				break;
-
-			case 2:
-				//order has been  sent for components 
-				int supplyCost = orderStatus.getPrice();
-				String orderID = orderStatus.getOrder().getOrderID();
-				ACLMessage sendPayment = new ACLMessage(ACLMessage.INFORM);
-				sendPayment.setOntology(ontology.getName());
-				sendPayment.setLanguage(codec.getName());
-				sendPayment.setConversationId("pay-components");
-				sendPayment.addReceiver(supplier);
-				PaymentSent payment = new PaymentSent();
-				payment.setOrderID(orderID);
-				payment.setBuyer(myAgent.getAID());
-				payment.setPrice(supplyCost);
-				try {
-					getContentManager().fillContent(sendPayment, payment);
-					send(sendPayment);
-					costOfSupplies = costOfSupplies + supplyCost;
-					step = 0; 
-				}catch(CodecException ce) {
-					ce.printStackTrace();
-				}catch(OntologyException oe) {
-					oe.printStackTrace();
-				}catch(Exception e) {
-					e.printStackTrace();
+			//collect the replies in whatever order they come
+			MessageTemplate mt = MessageTemplate.and(
+					MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.AGREE), MessageTemplate.MatchPerformative(ACLMessage.REFUSE)), MessageTemplate.MatchConversationId("buy-components"));
+			ACLMessage response = receive(mt);
+			if(response == null) {
+				if(!awaitingAgreement.isEmpty()) {
+					block();
+				}
+				return;
+			}
+			PurchaseOrder purchase = awaitingAgreement.remove(response.getInReplyTo());
+			if(purchase == null) {
+				System.out.println("Agent: " + myAgent.getAID() + "Received reply to unknown purchase from supplier");
+			}else if(response.getPerformative() == ACLMessage.AGREE) {
+				//bought and paid for, arrives after the supplier's delivery days. The delivery is expected even
+				//if every order in it was dropped because another supplier refused, its parts become free stock
+				int arrival = day + catalogueCache.get(purchase.getSupplier()).getDelivery();
+				orderBook.expectDelivery(purchase.getSupplier(), arrival);
+				for(PurchaseOrder.Allocation allocation : purchase.getAllocations()) {
+					if(allocation.getStatus().getStage() != OrderBook.Stage.CANCELLED) {
+						orderBook.scheduleDelivery(allocation.getStatus(), arrival);
+					}
+				}
+				purchases.put(purchase.getId(), purchase);
+				ledger.suppliesBought(purchase.getCost());
+			}else {
+				//the orders can't be built without these parts, drop them so they stop holding
+				//capacity, stock and late penalties. Parts bought from other suppliers become free stock
+				System.out.println("Agent: " + myAgent.getAID() + " supplier " + purchase.getSupplier().getLocalName()
+						+ " refused purchase " + purchase.getId());
+				for(PurchaseOrder.Allocation allocation : purchase.getAllocations()) {
+					CustomerOrderStatus status = orderBook.drop(allocation.getStatus().getOrder().getOrderID());
+					if(status == null) {
+						continue;
+					}
+					admission.withdraw(status);
+					ledger.orderClosed(status);
+					warehouse.release(status.getHeldParts(), status.getOrder().getQuantity());
+					status.setHeldParts(new int[0]);
 				}
-				step = 0;
-				break;
 			}
 		}
 
 		@Override
 		public boolean done() {
-			return accepted == 0 || (confirmedOrders.size() == 0 && step == 0); 
+			return sent && awaitingAgreement.isEmpty();
 		}	
 	} // end of order components behaviour
 
-	public class ReceiveSupplies extends Behaviour {
+	//positions in the order's bill of materials grouped by the supplier they are bought from
+	private static LinkedHashMap<AID, ArrayList<Integer>> partsBySupplier(CustomerOrderStatus status) {
+		LinkedHashMap<AID, ArrayList<Integer>> parts = new LinkedHashMap<>();
+		AID[] partSuppliers = status.getPartSuppliers();
+		for(int i=0; i<partSuppliers.length; i++) {
+			parts.computeIfAbsent(partSuppliers[i], s -> new ArrayList<>()).add(i);
+		}
+		return parts;
+	}
+
+	public class ReceiveSupplies extends StageBehaviour {
 
 		private static final long serialVersionUID = 1L;
 		private int suppliesReceived = 0;
-		private ArrayList<CustomerOrderStatus> toReceive = new ArrayList<>();
+		private HashSet<AID> toReceive = new HashSet<>(); //one manifest per supplier delivering today
 		public ReceiveSupplies(Agent a) {
-			super(a);
-			for(CustomerOrderStatus status : orderList) {	
-				if(status.getComponentDeliveryDate() == day) {
-					toReceive.add(status);
-				}
-			}
+			super(a, stageStats);
+			toReceive.addAll(orderBook.takeDeliveries(day));
 		}
 
 
 		@Override 
-		public void action() {
+		protected void stageAction() {
 			
 			if (toReceive.size() > 0) {
 				MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM), MessageTemplate.MatchConversationId("send-components"));
 				ACLMessage receiveMsg = receive(mt);
 				if(receiveMsg != null) {
-					int wHquantity;
-					String orderID;
-
 					try {
 						ContentElement ce = null; 
 						ce = getContentManager().extractContent(receiveMsg);
-						if (ce instanceof ComponentsSent) {
-							ComponentsSent componentsSent = (ComponentsSent) ce;
-							ArrayList<PhoneComponent> phoneComponents = componentsSent.getPhoneComponents();
-							wHquantity = componentsSent.getQty();
-							orderID = componentsSent.getOrderID();
-							for(PhoneComponent component : phoneComponents) {
-								if(warehouse.containsKey(component.hashCode())) {
-									int currentQuantity = warehouse.get(component.hashCode());
-									warehouse.put(component.hashCode(), wHquantity + currentQuantity);
-								}else { 
-									warehouse.put(component.hashCode(), wHquantity);
+						if (ce instanceof ShipmentManifest) {
+							//stock every line, then split each purchase order back to its customer orders
+							ArrayList<PurchaseOrder> delivered = new ArrayList<>();
+							for(ShipmentLine line : ((ShipmentManifest) ce).getLines()) {
+								for(PhoneComponent component : line.getComponents()) {
+									warehouse.add(Sku.of(component), line.getQuantity());
+								}
+								PurchaseOrder purchase = purchases.remove(line.getOrderID());
+								if(purchase != null) {
+									delivered.add(purchase);
 								}
-
 							}
-
-							for(CustomerOrderStatus status : toReceive) {
-								if(status.getOrder().getOrderID().equals(orderID)) {
-									gotComponents.add(status);
+							for(PurchaseOrder purchase : delivered) {
+								for(PurchaseOrder.Allocation allocation : purchase.getAllocations()) {
+									CustomerOrderStatus status = allocation.getStatus();
+									if(status.getStage() != OrderBook.Stage.ORDERED) {
+										continue; //cancelled, its parts stay free stock
+									}
+									//hold the delivered parts so new orders are not quoted against them,
+									//the order is ready once all its parts are in
+									warehouse.reserve(allocation.getSkus(), allocation.getQuantity());
+									status.setPartsOutstanding(status.getPartsOutstanding() - 1);
+									if(status.getPartsOutstanding() == 0) {
+										status.setHeldParts(new int[0]);
+										status.setComponentsReserved(true);
+										orderBook.markReady(status);
+									}else {
+										int[] held = status.getHeldParts();
+										int[] more = Arrays.copyOf(held, held.length + allocation.getSkus().length);
+										System.arraycopy(allocation.getSkus(), 0, more, held.length, allocation.getSkus().length);
+										status.setHeldParts(more);
+									}
 								}
 							}
 							suppliesReceived ++;
@@ -661,71 +746,62 @@ public class ManufacturerAgent extends Agent {
 		}
 	} // end of receive supplies behaviour
 
-	public class MakeOrder extends Behaviour {
+	public class MakeOrder extends StageBehaviour {
 		private int step = 0;
 		private int awaitingPayment = 0;
 		private static final long serialVersionUID = 1L;
 
 		public MakeOrder(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 
 
 		@Override
-		public void action() {
+		protected void stageAction() {
 			
 			switch(step) {
 			case 0:
-				//Collections.sort(confirmedOrders, CustomerOrderStatus.deliveryDays);
-				Collections.sort(confirmedOrders, CustomerOrderStatus.profit);
-				for(CustomerOrderStatus status: gotComponents) {
-					if(todaysPhoneQuantity + status.getOrder().getQuantity() > 50) {
-						continue;
-					}
-					ArrayList<PhoneComponent> phoneComponents = status.getOrder().getSmartPhone().getPhoneComponents();
+				//orders with components, earliest deadline first, the scheduler reserves components for the ones to build
+				ArrayList<CustomerOrderStatus> readyOrders = orderBook.takeReady();
+				for(CustomerOrderStatus status: scheduler.schedule(readyOrders, warehouse, dailyCapacity - todaysPhoneQuantity, day)) {
+					int[] billOfMaterials = status.getBillOfMaterials();
 					int quantity = status.getOrder().getQuantity();
-					boolean warehouseHasComponents = true;
-					for(PhoneComponent component : phoneComponents) {
-						if(!warehouse.containsKey(component.hashCode()) || (warehouse.containsKey(component.hashCode()) 
-								&& warehouse.get(component.hashCode()) < quantity)){
-							warehouseHasComponents = false;
-							break; //stop above being overwritten
-						}
-					}
 
-					if(warehouseHasComponents) {
-						//assemble and send order to customer
-						OrderShipped sendOrder = new OrderShipped();
-						ACLMessage sendMsg = new ACLMessage(ACLMessage.INFORM);
-						sendMsg.setOntology(ontology.getName());
-						sendMsg.setLanguage(codec.getName());
-						sendMsg.addReceiver(status.getCustomer());
-						sendMsg.setConversationId("send-phones-to-customer");
-						sendOrder.setManufacturer(myAgent.getAID());
-						sendOrder.setOrder(status.getOrder());
-						try {
-							//remove components from warehouse (assemble)
-							for(PhoneComponent component : phoneComponents) {
-								int currQty = warehouse.get(component.hashCode());
-								warehouse.put(component.hashCode(), (currQty - quantity));
-							}
-							todaysPhoneQuantity += quantity;
-							
-							//ship order
-							getContentManager().fillContent(sendMsg, sendOrder);
-							send(sendMsg);
-							awaitingPayment++;
-							
-						}catch(CodecException ce) {
-							ce.printStackTrace();
-						}catch(OntologyException oe) {
-							oe.printStackTrace();
-						}catch(Exception e) {
-							e.printStackTrace();
-						}
+					//assemble and send order to customer
+					OrderShipped sendOrder = new OrderShipped();
+					ACLMessage sendMsg = new ACLMessage(ACLMessage.INFORM);
+					sendMsg.setOntology(ontology.getName());
+					sendMsg.setLanguage(codec.getName());
+					sendMsg.addReceiver(status.getCustomer());
+					sendMsg.setConversationId("send-phones-to-customer");
+					sendOrder.setManufacturer(myAgent.getAID());
+					sendOrder.setOrder(status.getOrder());
+					try {
+						//remove components from warehouse (assemble)
+						warehouse.consumeReserved(billOfMaterials, quantity);
+						status.setComponentsReserved(false);
+						admission.built(status);
+						todaysPhoneQuantity += quantity;
+						orderBook.markShipped(status);
+						
+						//ship order
+						getContentManager().fillContent(sendMsg, sendOrder);
+						SimulationStats.send(myAgent, sendMsg);
+						awaitingPayment++;
+						
+					}catch(CodecException ce) {
+						ce.printStackTrace();
+					}catch(OntologyException oe) {
+						oe.printStackTrace();
+					}catch(Exception e) {
+						e.printStackTrace();
 					}
 
 				}
+				//orders not built wait for another day, shipped ones are skipped
+				for(CustomerOrderStatus status : readyOrders) {
+					orderBook.returnReady(status);
+				}
 				step++;
 
 				//receive payment from customer
@@ -740,13 +816,11 @@ public class ManufacturerAgent extends Agent {
 
 							if (ce instanceof PaymentSent) {
 								PaymentSent payment = (PaymentSent) ce;
-								for(CustomerOrderStatus status : orderList) {
-									if(status.getOrder().getOrderID().equals(payment.getOrderID())) {
-										status.setOrderCompleted(true);
-										gotComponents.remove(status);
-									}
+								CustomerOrderStatus completed = orderBook.complete(payment.getOrderID());
+								if(completed != null) {
+									ledger.orderClosed(completed);
 								}
-								todaysProfit += payment.getPrice();
+								ledger.paymentReceived(payment.getPrice());
 								awaitingPayment --;
 							}else {
 								System.out.println("Agent: " + myAgent.getAID().getLocalName() + "Received wrong msg from customer");
@@ -777,57 +851,32 @@ public class ManufacturerAgent extends Agent {
 		}
 	}
 
-	public class CalculateDailyTotals extends OneShotBehaviour{
+	public class CalculateDailyTotals extends StageBehaviour {
 		public CalculateDailyTotals(Agent a) {
-			super(a);
+			super(a, stageStats);
 		}
 		@Override
-		public void action() {
-			//calculate warehouse totals
-			for(Integer component : warehouse.keySet()) {
-				int cost = warehouse.get(component) * 5;
-				storageCost += cost;
-			}
+		protected void stageAction() {
+			//storage, late fees and profit come from totals kept as the day went on
+			ledger.settle(day);
 
-			//calculate late fees
-			for(CustomerOrderStatus status : orderList) {
-				int deadlineDay = status.getDayOrdered() + status.getOrder().getDaysToDeadline();
-				if(status.getOrderCompleted()!=true && day > deadlineDay) {
-					int cost = status.getOrder().getPerDayPenalty();
-					latePenalty +=cost;
-				}
-
-			}
-			//calculateTotalProfit
-			totalProfit = totalProfit + todaysProfit - storageCost - latePenalty - costOfSupplies;
-
-			//remove finished order from current order list
-			for(CustomerOrderStatus status : orderList) {
-				if(status.getOrderCompleted()==true) {
-					confirmedOrders.remove(status);
-				}
-			}
-			Iterator<CustomerOrderStatus> iter = orderList.iterator();
-			while(iter.hasNext()) {
-				if(iter.next().getOrderCompleted() == true) {
-					iter.remove();
-				}
-			}
+			dailyReport.record(day, ledger.getRevenue(), ledger.getStorageCost(), ledger.getLatePenalty(), ledger.getSupplyCost(),
+					todaysPhoneQuantity, accepted, ledger.getTotalProfit());
+		}
 
-			System.out.printf("\n Day %d, \nTodays profit = £%d.00, \nTotal profit = £%d.00\n", day, todaysProfit, totalProfit );
+		@Override
+		public boolean done() {
+			return true;
 		}
 	}
 
-	public class EndOfDay extends OneShotBehaviour {
+	public class EndOfDay extends StageBehaviour {
 		public EndOfDay(Agent a){
-			super(a);
+			super(a, stageStats);
 		}
 		@Override
-		public void action() {
-			todaysProfit = 0;
-			latePenalty = 0;
-			storageCost = 0;
-			costOfSupplies = 0;
+		protected void stageAction() {
+			ledger.startDay();
 			todaysPhoneQuantity = 0;
 			approvedOrdersNum = 0;
 			accepted = 0;
@@ -837,9 +886,14 @@ public class ManufacturerAgent extends Agent {
 			for(AID supplier : suppliers.keySet()) {
 				doneMsg.addReceiver(supplier);
 			}
-			myAgent.send(doneMsg);
+			SimulationStats.send(myAgent, doneMsg);
 			//System.out.println("MANU DONE!");
 			day++;
 		}
+
+		@Override
+		public boolean done() {
+			return true;
+		}
 	}
 }
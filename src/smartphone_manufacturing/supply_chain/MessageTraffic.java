@@ -0,0 +1,264 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+/*
+ * Messages and content bytes by conversation id, per agent and per day.
+ * Messages without a conversation id (ticker control and the like) are
+ * keyed "control:" + content. Sent counts are kept against the sender and
+ * received counts against each receiver when the message is sent, so a
+ * receiver in another container is counted in the sender's JVM. Each JVM
+ * follows the day from the agents' "new-day" messages, and peripheral
+ * containers' conversation totals are merged in for the end of run report
+ * */
+
+public class MessageTraffic implements MessageTrafficMXBean {
+
+	public static final String OBJECT_NAME = "smartphone_manufacturing:type=MessageTraffic";
+	private static final MessageTraffic instance = new MessageTraffic();
+
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Counters>> byAgent = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Counters>> byDay = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Counters> containers = new ConcurrentHashMap<>(); //totals reported by peripheral containers
+	private volatile int currentDay = 0;
+	private volatile boolean registered = false;
+
+	public static class Counters {
+		final LongAdder sent = new LongAdder();
+		final LongAdder received = new LongAdder();
+		final LongAdder bytesSent = new LongAdder();
+		final LongAdder bytesReceived = new LongAdder();
+	}
+
+	private MessageTraffic() {}
+
+	public static MessageTraffic getInstance() {
+		return instance;
+	}
+
+	//expose through the platform MBean server, only done once per JVM
+	public synchronized void register() {
+		if(registered) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+			registered = true;
+		}catch(JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	//called by every agent on "new-day", so only ever moves forward
+	public synchronized void dayStarted(int day) {
+		if(day > currentDay) {
+			currentDay = day;
+		}
+	}
+
+	public void record(AID sender, ACLMessage msg) {
+		String key = key(msg);
+		long bytes = contentBytes(msg);
+		int receivers = 0;
+		Iterator<?> it = msg.getAllReceiver();
+		while(it.hasNext()) {
+			Counters received = counters(byAgent, ((AID) it.next()).getLocalName(), key);
+			received.received.increment();
+			received.bytesReceived.add(bytes);
+			receivers++;
+		}
+		//one copy of the message per receiver
+		Counters sent = counters(byAgent, sender == null ? "unknown" : sender.getLocalName(), key);
+		sent.sent.add(receivers);
+		sent.bytesSent.add(bytes * receivers);
+		Counters day = counters(byDay, currentDay, key);
+		day.sent.add(receivers);
+		day.received.add(receivers);
+		day.bytesSent.add(bytes * receivers);
+		day.bytesReceived.add(bytes * receivers);
+	}
+
+	private static String key(ACLMessage msg) {
+		String conversation = msg.getConversationId();
+		if(conversation != null) {
+			return conversation;
+		}
+		return "control:" + msg.getContent();
+	}
+
+	//encoded size, string content is counted as UTF-8 without copying it
+	private static long contentBytes(ACLMessage msg) {
+		if(msg.hasByteSequenceContent()) {
+			byte[] content = msg.getByteSequenceContent();
+			return content == null ? 0 : content.length;
+		}
+		String content = msg.getContent();
+		if(content == null) {
+			return 0;
+		}
+		long bytes = 0;
+		for(int i=0; i<content.length(); i++) {
+			char c = content.charAt(i);
+			if(c < 0x80) {
+				bytes += 1;
+			}else if(c < 0x800) {
+				bytes += 2;
+			}else if(Character.isHighSurrogate(c)) {
+				bytes += 4;
+				i++;
+			}else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	private static <K> Counters counters(ConcurrentHashMap<K, ConcurrentHashMap<String, Counters>> map, K outer, String key) {
+		return map.computeIfAbsent(outer, o -> new ConcurrentHashMap<>()).computeIfAbsent(key, k -> new Counters());
+	}
+
+	//conversation totals over all agents, each message counted once from its sender's side
+	private Map<String, Long> totals(ToLongFunction<Counters> value) {
+		TreeMap<String, Long> totals = new TreeMap<>();
+		for(ConcurrentHashMap<String, Counters> agent : byAgent.values()) {
+			for(Map.Entry<String, Counters> entry : agent.entrySet()) {
+				totals.merge(entry.getKey(), value.applyAsLong(entry.getValue()), Long::sum);
+			}
+		}
+		return totals;
+	}
+
+	//this JVM's conversation totals for the ticker, one "sent received bytes conversation" line each
+	public String encodeTotals() {
+		Map<String, Long> received = getReceivedByConversation();
+		Map<String, Long> bytes = getBytesSentByConversation();
+		StringBuilder encoded = new StringBuilder();
+		for(Map.Entry<String, Long> entry : getSentByConversation().entrySet()) {
+			encoded.append(entry.getValue()).append('\t').append(received.getOrDefault(entry.getKey(), 0L)).append('\t')
+					.append(bytes.getOrDefault(entry.getKey(), 0L)).append('\t').append(entry.getKey()).append('\n');
+		}
+		return encoded.toString();
+	}
+
+	//adds a peripheral container's encodeTotals() to the report
+	public void addContainerTotals(String encoded) {
+		if(encoded == null) {
+			return;
+		}
+		for(String line : encoded.split("\n")) {
+			String[] fields = line.split("\t", 4);
+			if(fields.length < 4) {
+				continue;
+			}
+			try {
+				Counters counters = containers.computeIfAbsent(fields[3], k -> new Counters());
+				counters.sent.add(Long.parseLong(fields[0]));
+				counters.received.add(Long.parseLong(fields[1]));
+				counters.bytesSent.add(Long.parseLong(fields[2]));
+			}catch(NumberFormatException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	//this JVM's totals plus the ones peripheral containers reported
+	private Map<String, Long> allContainers(ToLongFunction<Counters> value) {
+		Map<String, Long> totals = totals(value);
+		for(Map.Entry<String, Counters> entry : containers.entrySet()) {
+			totals.merge(entry.getKey(), value.applyAsLong(entry.getValue()), Long::sum);
+		}
+		return totals;
+	}
+
+	private static Map<String, Long> sent(Map<String, Counters> counters) {
+		TreeMap<String, Long> sent = new TreeMap<>();
+		if(counters != null) {
+			for(Map.Entry<String, Counters> entry : counters.entrySet()) {
+				sent.put(entry.getKey(), entry.getValue().sent.sum());
+			}
+		}
+		return sent;
+	}
+
+	@Override
+	public long getMessagesSent() {
+		return sum(getSentByConversation());
+	}
+
+	@Override
+	public long getMessagesReceived() {
+		return sum(getReceivedByConversation());
+	}
+
+	@Override
+	public long getBytesSent() {
+		return sum(getBytesSentByConversation());
+	}
+
+	private static long sum(Map<String, Long> values) {
+		long sum = 0;
+		for(long value : values.values()) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	@Override
+	public int getCurrentDay() {
+		return currentDay;
+	}
+
+	@Override
+	public Map<String, Long> getSentByConversation() {
+		return totals(c -> c.sent.sum());
+	}
+
+	@Override
+	public Map<String, Long> getReceivedByConversation() {
+		return totals(c -> c.received.sum());
+	}
+
+	@Override
+	public Map<String, Long> getBytesSentByConversation() {
+		return totals(c -> c.bytesSent.sum());
+	}
+
+	@Override
+	public Map<String, Long> sentOnDay(int day) {
+		return sent(byDay.get(day));
+	}
+
+	@Override
+	public Map<String, Long> sentByAgent(String agent) {
+		return sent(byAgent.get(agent));
+	}
+
+	//conversation table for the end of run report, over all containers
+	public String report() {
+		Map<String, Long> sent = allContainers(c -> c.sent.sum());
+		Map<String, Long> received = allContainers(c -> c.received.sum());
+		Map<String, Long> bytes = allContainers(c -> c.bytesSent.sum());
+		StringBuilder report = new StringBuilder("Messages by conversation");
+		report.append(String.format("%n  %-32s %12s %12s %14s %10s", "conversation", "sent", "received", "bytes", "bytes/msg"));
+		for(Map.Entry<String, Long> entry : sent.entrySet()) {
+			long count = entry.getValue();
+			long size = bytes.getOrDefault(entry.getKey(), 0L);
+			report.append(String.format("%n  %-32s %12d %12d %14d %10d", entry.getKey(), count,
+					received.getOrDefault(entry.getKey(), 0L), size, count == 0 ? 0 : size / count));
+		}
+		return report.toString();
+	}
+
+}
@@ -0,0 +1,33 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.Map;
+
+/*
+ * JMX view of MessageTraffic, registered as
+ * smartphone_manufacturing:type=MessageTraffic in each simulation JVM
+ * */
+
+public interface MessageTrafficMXBean {
+
+	long getMessagesSent();
+
+	long getMessagesReceived();
+
+	long getBytesSent();
+
+	int getCurrentDay();
+
+	//totals by conversation id
+	Map<String, Long> getSentByConversation();
+
+	Map<String, Long> getReceivedByConversation();
+
+	Map<String, Long> getBytesSentByConversation();
+
+	//messages sent by conversation id on one day of the run
+	Map<String, Long> sentOnDay(int day);
+
+	//messages sent by conversation id by one agent (local name)
+	Map<String, Long> sentByAgent(String agent);
+
+}
@@ -0,0 +1,196 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import jade.core.AID;
+
+/*
+ * Manufacturer's open customer orders. Orders are indexed by id, confirmed
+ * orders are bucketed by the day their components are bought, orders with
+ * components wait in a heap by deadline to be built and the suppliers
+ * delivering components are bucketed by the day they arrive.
+ * Heaps are cleaned lazily: an entry is skipped if the order has moved on
+ * */
+
+public class OrderBook {
+
+	public enum Stage {
+		APPROVED, //quoted, waiting for the customer to send the order
+		CONFIRMED, //customer sent the order, components not yet bought
+		ORDERED, //components bought, waiting for delivery
+		READY, //components delivered, waiting to be built
+		SHIPPED, //built and sent, waiting for payment
+		COMPLETED,
+		CANCELLED //taken out of the book before it was built
+	}
+
+	private HashMap<String, CustomerOrderStatus> orders = new HashMap<>();
+	private HashMap<Integer, ArrayList<CustomerOrderStatus>> confirmedByPurchaseDay = new HashMap<>(); //bucket taken on its day
+	private PriorityQueue<CustomerOrderStatus> readyByDeadline = new PriorityQueue<>(CustomerOrderStatus.deadline);
+	private HashMap<Integer, HashSet<AID>> deliveriesByDay = new HashMap<>(); //suppliers delivering on each day
+	private int approved = 0;
+	private int ready = 0;
+
+	//new order quoted to a customer
+	public void approve(CustomerOrderStatus status) {
+		orders.put(status.getOrder().getOrderID(), status);
+		status.setStage(Stage.APPROVED);
+		approved++;
+	}
+
+	public CustomerOrderStatus get(String orderID) {
+		return orders.get(orderID);
+	}
+
+	//customer has sent the approved order, returns null if it was not approved
+	public CustomerOrderStatus confirm(String orderID) {
+		CustomerOrderStatus status = orders.get(orderID);
+		if(status == null || status.getStage() != Stage.APPROVED) {
+			return null;
+		}
+		status.setStage(Stage.CONFIRMED);
+		if(!status.isComponentsReserved()) {
+			confirmedByPurchaseDay.computeIfAbsent(status.getPurchaseDay(), d -> new ArrayList<>()).add(status);
+		}
+		approved--;
+		return status;
+	}
+
+	//customer chose another manufacturer, drops an order that was only approved
+	public CustomerOrderStatus cancel(String orderID) {
+		CustomerOrderStatus status = orders.get(orderID);
+		if(status == null || status.getStage() != Stage.APPROVED) {
+			return null;
+		}
+		orders.remove(orderID);
+		status.setStage(Stage.CANCELLED);
+		approved--;
+		return status;
+	}
+
+	//order that can't be built any more, e.g. a supplier refused its parts. Returns null if it is not open
+	public CustomerOrderStatus drop(String orderID) {
+		CustomerOrderStatus status = orders.remove(orderID);
+		if(status == null) {
+			return null;
+		}
+		if(status.getStage() == Stage.APPROVED) {
+			approved--;
+		}else if(status.getStage() == Stage.READY) {
+			ready--;
+		}
+		status.setStage(Stage.CANCELLED);
+		return status;
+	}
+
+	//confirmed orders whose components are bought on the given day, each day is handed out once
+	public ArrayList<CustomerOrderStatus> takeConfirmed(int day) {
+		ArrayList<CustomerOrderStatus> due = new ArrayList<>();
+		ArrayList<CustomerOrderStatus> bucket = confirmedByPurchaseDay.remove(day);
+		if(bucket != null) {
+			for(CustomerOrderStatus status : bucket) {
+				if(status.getStage() == Stage.CONFIRMED) {
+					due.add(status);
+				}
+			}
+		}
+		return due;
+	}
+
+	//components have been bought, part of them arriving on the given day. Called for each
+	//supplier, the order is delivered when its last part arrives
+	public void scheduleDelivery(CustomerOrderStatus status, int day) {
+		status.setStage(Stage.ORDERED);
+		status.setComponentDeliveryDate(Math.max(status.getComponentDeliveryDate(), day));
+	}
+
+	//a supplier agreed to a purchase and ships it on the given day, even if its orders have since been cancelled
+	public void expectDelivery(AID supplier, int day) {
+		deliveriesByDay.computeIfAbsent(day, d -> new HashSet<>()).add(supplier);
+	}
+
+	//suppliers delivering on the given day, each day is handed out once
+	public Set<AID> takeDeliveries(int day) {
+		HashSet<AID> due = deliveriesByDay.remove(day);
+		return due == null ? Collections.<AID>emptySet() : due;
+	}
+
+	//components delivered, order can be built
+	public void markReady(CustomerOrderStatus status) {
+		if(status.getStage() == Stage.ORDERED) {
+			status.setStage(Stage.READY);
+			readyByDeadline.add(status);
+			ready++;
+		}
+	}
+
+	//confirmed order whose components were held from stock when it was approved, nothing to buy
+	public void markReadyFromStock(CustomerOrderStatus status) {
+		if(status.getStage() == Stage.CONFIRMED) {
+			status.setStage(Stage.READY);
+			readyByDeadline.add(status);
+			ready++;
+		}
+	}
+
+	//orders that can be built, earliest deadline first. Orders not shipped
+	//must be handed back with returnReady()
+	public ArrayList<CustomerOrderStatus> takeReady() {
+		ArrayList<CustomerOrderStatus> readyOrders = new ArrayList<>(ready);
+		CustomerOrderStatus status;
+		while((status = readyByDeadline.poll()) != null) {
+			if(status.getStage() == Stage.READY) {
+				readyOrders.add(status);
+			}
+		}
+		ready = 0;
+		return readyOrders;
+	}
+
+	public void returnReady(CustomerOrderStatus status) {
+		if(status.getStage() == Stage.READY) {
+			readyByDeadline.add(status);
+			ready++;
+		}
+	}
+
+	public void markShipped(CustomerOrderStatus status) {
+		status.setStage(Stage.SHIPPED);
+	}
+
+	//order paid for, removed from the book
+	public CustomerOrderStatus complete(String orderID) {
+		CustomerOrderStatus status = orders.remove(orderID);
+		if(status != null) {
+			if(status.getStage() == Stage.APPROVED) {
+				approved--;
+			}
+			status.setStage(Stage.COMPLETED);
+			status.setOrderCompleted(true);
+		}
+		return status;
+	}
+
+	public Collection<CustomerOrderStatus> openOrders() {
+		return orders.values();
+	}
+
+	public int getApprovedCount() {
+		return approved;
+	}
+
+	public int getReadyCount() {
+		return ready;
+	}
+
+	public int size() {
+		return orders.size();
+	}
+
+}
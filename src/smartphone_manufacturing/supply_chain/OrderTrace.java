@@ -0,0 +1,159 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
+import smartphone_manufacturing.supply_chain_ontology.concepts.SmartPhone;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletBattery;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletScreen;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.RAM;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallBattery;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallScreen;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.Storage;
+
+/*
+ * Binary trace of customer orders, one fixed size record per customer per
+ * day so a record is found by position without any index. Layout:
+ *   header: magic, version, days, customers (ints), seed (long)
+ *   record: quantity, price, per day penalty (ints), days to deadline,
+ *           phone flags (unsigned bytes), 2 bytes padding
+ * The file is memory mapped read only and shared by every customer in the vm,
+ * reads use absolute gets so they don't change the buffer position
+ * */
+
+public class OrderTrace {
+
+	private static final int MAGIC = 0x50545243; //"PTRC"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 24;
+	private static final int RECORD_BYTES = 16;
+
+	//phone flags, unset means small phone, 4gb ram, 64gb storage
+	private static final int PHABLET = 1;
+	private static final int RAM_8 = 2;
+	private static final int STORAGE_256 = 4;
+
+	private final MappedByteBuffer buffer;
+	private final int days;
+	private final int customers;
+	private final long seed;
+
+	private OrderTrace(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not an order trace");
+		}
+		days = buffer.getInt(8);
+		customers = buffer.getInt(12);
+		seed = buffer.getLong(16);
+		if(buffer.capacity() != HEADER_BYTES + (long) days * customers * RECORD_BYTES) {
+			throw new IOException("Order trace is truncated");
+		}
+	}
+
+	public static OrderTrace open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			//mapping stays valid after the channel is closed
+			return new OrderTrace(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	//write a trace of the orders the generator gives each customer with this seed
+	public static void write(Path file, WorkloadProfile profile, long seed, int days, int customers) throws IOException {
+		long size = HEADER_BYTES + (long) days * customers * RECORD_BYTES;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			out.putInt(MAGIC).putInt(VERSION).putInt(days).putInt(customers).putLong(seed);
+			//generate customer by customer, each one's stream is independent of the others
+			for(int customer=0; customer<customers; customer++) {
+				WorkloadGenerator generator = new WorkloadGenerator(profile, seed, customer);
+				for(int day=1; day<=days; day++) {
+					out.position(offset(day, customer, customers));
+					writeRecord(out, generator.nextOrder());
+				}
+			}
+			out.force();
+		}
+	}
+
+	private static int offset(int day, int customer, int customers) {
+		long offset = HEADER_BYTES + ((long) (day - 1) * customers + customer) * RECORD_BYTES;
+		if(offset > Integer.MAX_VALUE - RECORD_BYTES) {
+			throw new IllegalArgumentException("Order trace larger than 2GB");
+		}
+		return (int) offset;
+	}
+
+	private static void writeRecord(ByteBuffer out, CustomerOrder order) {
+		SmartPhone phone = order.getSmartPhone();
+		int flags = 0;
+		if(phone.getScreen() instanceof PhabletScreen) {
+			flags |= PHABLET;
+		}
+		if(phone.getRAM().getGb() == 8) {
+			flags |= RAM_8;
+		}
+		if(phone.getStorage().getStorage() == 256) {
+			flags |= STORAGE_256;
+		}
+		if(order.getDaysToDeadline() > 255) {
+			throw new IllegalArgumentException("Deadline too long for order trace: " + order.getDaysToDeadline());
+		}
+		out.putInt(order.getQuantity());
+		out.putInt(order.getPrice());
+		out.putInt(order.getPerDayPenalty());
+		out.put((byte) order.getDaysToDeadline());
+		out.put((byte) flags);
+		out.putShort((short) 0);
+	}
+
+	//order for a customer on a day (days start at 1), same id the generator would give
+	public CustomerOrder read(int day, int customer) {
+		if(day < 1 || day > days || customer < 0 || customer >= customers) {
+			throw new IndexOutOfBoundsException("No order for customer " + customer + " on day " + day);
+		}
+		int record = offset(day, customer, customers);
+		int flags = buffer.get(record + 13);
+
+		SmartPhone phone = new SmartPhone();
+		if((flags & PHABLET) != 0) {
+			phone.setBattery(new PhabletBattery());
+			phone.setScreen(new PhabletScreen());
+		}else {
+			phone.setBattery(new SmallBattery());
+			phone.setScreen(new SmallScreen());
+		}
+		phone.setRAM(new RAM((flags & RAM_8) != 0 ? 8 : 4));
+		phone.setStorage(new Storage((flags & STORAGE_256) != 0 ? 256 : 64));
+
+		CustomerOrder order = new CustomerOrder();
+		order.setOrderID("c" + customer + "-" + (day - 1));
+		order.setSmartPhone(phone);
+		order.setQuantity(buffer.getInt(record));
+		order.setPrice(buffer.getInt(record + 4));
+		order.setPerDayPenalty(buffer.getInt(record + 8));
+		order.setDaysToDeadline(buffer.get(record + 12) & 0xFF);
+		return order;
+	}
+
+	public int getDays() {
+		return days;
+	}
+
+	public int getCustomers() {
+		return customers;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+}
@@ -0,0 +1,48 @@
+package smartphone_manufacturing.supply_chain;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
+
+/*
+ * Entry point of a peripheral container JVM started by Main when running
+ * with --containers=N. Joins the main container's platform and starts this
+ * container's share of customers and suppliers. Takes Main's arguments plus
+ * --container-index; the vm exits when Main kills the platform
+ * */
+
+public class PeripheralLauncher {
+
+	public static void main(String[] args) {
+
+		Runtime myRuntime = Runtime.instance();
+
+		try {
+			SimulationConfig config = SimulationConfig.load(args);
+			System.setProperty(ContentCodecs.CODEC_PROPERTY, config.getCodec());
+			System.setProperty(StageStats.MODE_PROPERTY, config.getStageStats());
+			myRuntime.setCloseVM(true);
+			MessageTraffic.getInstance().register();
+
+			Profile myProfile = new ProfileImpl();
+			myProfile.setParameter(Profile.MAIN_HOST, config.getMainHost());
+			myProfile.setParameter(Profile.MAIN_PORT, String.valueOf(config.getMainPort()));
+			myProfile.setParameter(Profile.CONTAINER_NAME, "peripheral-" + config.getContainerIndex());
+			ContainerController myContainer = myRuntime.createAgentContainer(myProfile);
+
+			AgentController stats = myContainer.createNewAgent("stats-" + config.getContainerIndex(),
+					ContainerStatsAgent.class.getCanonicalName(), null);
+			stats.start();
+			Main.startAgents(myContainer, config, config.getContainerIndex());
+
+		}catch(Exception e) {
+			System.out.println("Exception starting peripheral container: " + e.toString());
+			System.exit(1);
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.List;
+
+/*
+ * Chooses which ready orders the manufacturer builds today. Ready orders
+ * are given earliest deadline first. Orders whose build day booked at
+ * admission has come are built before any other so the capacity promised
+ * to them is kept. Components for the chosen orders are reserved in the
+ * warehouse (most already hold theirs from delivery); orders not chosen
+ * go back to the order book
+ * */
+
+public interface ProductionScheduler {
+
+	String GREEDY = "greedy";
+	String PROFIT = "profit";
+
+	List<CustomerOrderStatus> schedule(List<CustomerOrderStatus> ready, Inventory warehouse, int capacity, int day);
+
+	static ProductionScheduler named(String name) {
+		if(GREEDY.equals(name)) {
+			return new GreedyScheduler();
+		}else if(PROFIT.equals(name)) {
+			return new ProfitScheduler();
+		}
+		throw new IllegalArgumentException("Unknown production scheduler " + name);
+	}
+
+	//reserve orders whose booked build day has come, earliest deadline first, returns the phones used
+	static int buildBooked(List<CustomerOrderStatus> ready, Inventory warehouse, int capacity, int day, List<CustomerOrderStatus> build) {
+		int used = 0;
+		for(CustomerOrderStatus status : ready) {
+			int quantity = status.getOrder().getQuantity();
+			if(isBooked(status, day) && quantity <= capacity - used && reserve(status, warehouse)) {
+				build.add(status);
+				used += quantity;
+			}
+		}
+		return used;
+	}
+
+	static boolean isBooked(CustomerOrderStatus status, int day) {
+		return status.getBuildDay() <= day;
+	}
+
+	//components held for the order or free in the warehouse
+	static boolean canBuild(CustomerOrderStatus status, Inventory warehouse) {
+		return status.isComponentsReserved() || warehouse.canBuild(status.getBillOfMaterials(), status.getOrder().getQuantity());
+	}
+
+	//hold components for the order if it does not have them already
+	static boolean reserve(CustomerOrderStatus status, Inventory warehouse) {
+		if(!status.isComponentsReserved()) {
+			if(!warehouse.reserve(status.getBillOfMaterials(), status.getOrder().getQuantity())) {
+				return false;
+			}
+			status.setComponentsReserved(true);
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,171 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Builds the orders booked for today, then picks the build set that earns
+ * the most within the capacity left: each
+ * order is worth its profit plus the penalty avoided by building it today
+ * (its per day penalty if it is due or late). Solved as a 0/1 knapsack
+ * over the phone capacity. At most capacity/q orders of q phones fit in a
+ * day, so only the most valuable capacity/q orders of each size go into
+ * the table, which keeps it to about capacity x ln(capacity) rows however
+ * long the backlog is. Orders are taken earliest deadline first and only
+ * replace an earlier choice when strictly better, so ties go to the
+ * earlier deadline. Capacity left over because of stock is filled
+ * earliest deadline first so no order waits forever.
+ * Working arrays are kept between days
+ * */
+
+public class ProfitScheduler implements ProductionScheduler {
+
+	private CustomerOrderStatus[][] bySize = new CustomerOrderStatus[0][]; //most valuable orders of each quantity
+	private long[][] valueBySize = new long[0][];
+	private int[] sizeCount = new int[0];
+	private CustomerOrderStatus[] candidates = new CustomerOrderStatus[0];
+	private long[] best = new long[0]; //best value for each capacity
+	private boolean[] taken = new boolean[0]; //candidate x capacity, candidate improved that capacity
+
+	@Override
+	public List<CustomerOrderStatus> schedule(List<CustomerOrderStatus> ready, Inventory warehouse, int capacity, int day) {
+		ArrayList<CustomerOrderStatus> build = new ArrayList<>();
+		int room = capacity - ProductionScheduler.buildBooked(ready, warehouse, capacity, day, build);
+		if(room <= 0) {
+			return build;
+		}
+		int width = room + 1;
+		if(sizeCount.length < width) {
+			grow(room);
+		}
+		Arrays.fill(sizeCount, 0);
+
+		//keep the best room/q orders of each quantity q that can be built on their own today
+		int count = 0;
+		for(CustomerOrderStatus status : ready) {
+			int quantity = status.getOrder().getQuantity();
+			if(quantity <= 0 || quantity > room || ProductionScheduler.isBooked(status, day) || !ProductionScheduler.canBuild(status, warehouse)) {
+				continue;
+			}
+			long value = value(status, day);
+			int limit = room / quantity;
+			CustomerOrderStatus[] kept = bySize[quantity];
+			long[] keptValue = valueBySize[quantity];
+			int n = sizeCount[quantity];
+			if(n == limit) {
+				if(value <= keptValue[n - 1]) {
+					continue; //ready is earliest deadline first, an equal value keeps the earlier order
+				}
+				n--;
+			}else {
+				count++;
+			}
+			int i = n;
+			while(i > 0 && keptValue[i - 1] < value) {
+				kept[i] = kept[i - 1];
+				keptValue[i] = keptValue[i - 1];
+				i--;
+			}
+			kept[i] = status;
+			keptValue[i] = value;
+			sizeCount[quantity] = n + 1;
+		}
+
+		if(candidates.length < count) {
+			candidates = new CustomerOrderStatus[count];
+		}
+		int c = 0;
+		for(int quantity=1; quantity<=room; quantity++) {
+			for(int i=0; i<sizeCount[quantity]; i++) {
+				candidates[c++] = bySize[quantity][i];
+				bySize[quantity][i] = null;
+			}
+		}
+		Arrays.sort(candidates, 0, count, CustomerOrderStatus.deadline);
+
+		if(taken.length < count * width) {
+			taken = new boolean[count * width];
+		}
+		Arrays.fill(best, 0, width, 0L);
+		for(int i=0; i<count; i++) {
+			CustomerOrderStatus status = candidates[i];
+			int quantity = status.getOrder().getQuantity();
+			long value = value(status, day);
+			int row = i * width;
+			Arrays.fill(taken, row, row + width, false);
+			for(int cap=room; cap>=quantity; cap--) {
+				long with = best[cap - quantity] + value;
+				if(with > best[cap]) {
+					best[cap] = with;
+					taken[row + cap] = true;
+				}
+			}
+		}
+
+		//walk back through the table to find the chosen orders
+		ArrayList<CustomerOrderStatus> chosen = new ArrayList<>();
+		int cap = room;
+		for(int i=count-1; i>=0; i--) {
+			if(taken[i * width + cap]) {
+				chosen.add(candidates[i]);
+				cap -= candidates[i].getOrder().getQuantity();
+			}
+		}
+		Arrays.fill(candidates, 0, count, null);
+		Collections.reverse(chosen);
+
+		//reserve earliest deadline first, orders sharing short stock may not all fit
+		Set<CustomerOrderStatus> built = Collections.newSetFromMap(new IdentityHashMap<>());
+		int remaining = room;
+		for(CustomerOrderStatus status : chosen) {
+			remaining -= reserve(status, warehouse, remaining, build);
+			built.add(status);
+		}
+		//then fill what is left from the whole backlog
+		for(CustomerOrderStatus status : ready) {
+			if(remaining == 0) {
+				break;
+			}
+			if(!built.contains(status) && !ProductionScheduler.isBooked(status, day)) {
+				remaining -= reserve(status, warehouse, remaining, build);
+			}
+		}
+		return build;
+	}
+
+	//phones taken from the capacity, 0 if the order does not fit
+	private static int reserve(CustomerOrderStatus status, Inventory warehouse, int remaining, List<CustomerOrderStatus> build) {
+		int quantity = status.getOrder().getQuantity();
+		if(quantity <= remaining && ProductionScheduler.reserve(status, warehouse)) {
+			build.add(status);
+			return quantity;
+		}
+		return 0;
+	}
+
+	private void grow(int capacity) {
+		int width = capacity + 1;
+		bySize = new CustomerOrderStatus[width][];
+		valueBySize = new long[width][];
+		for(int quantity=1; quantity<width; quantity++) {
+			bySize[quantity] = new CustomerOrderStatus[capacity / quantity];
+			valueBySize[quantity] = new long[capacity / quantity];
+		}
+		sizeCount = new int[width];
+		best = new long[width];
+	}
+
+	//profit from the order plus the penalty saved by not leaving it another day
+	static long value(CustomerOrderStatus status, int day) {
+		long value = (long) status.getOrder().getPrice() - status.getPrice();
+		if(day >= status.getDeadlineDay()) {
+			value += status.getOrder().getPerDayPenalty();
+		}
+		return value;
+	}
+
+}
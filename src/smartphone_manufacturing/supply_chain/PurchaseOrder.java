@@ -0,0 +1,98 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+
+import jade.core.AID;
+import smartphone_manufacturing.supply_chain_ontology.concepts.PurchaseLine;
+
+/*
+ * Manufacturer's purchase from one supplier for a day: the customer orders'
+ * parts bought from that supplier are added up by sku into one order.
+ * Each customer order's share is kept so the delivered stock can be split
+ * back to the orders
+ * */
+
+public class PurchaseOrder {
+
+	//a customer order's parts in the purchase
+	public static class Allocation {
+		private final CustomerOrderStatus status;
+		private final int[] skus;
+		private final int quantity;
+
+		private Allocation(CustomerOrderStatus status, int[] skus, int quantity) {
+			this.status = status;
+			this.skus = skus;
+			this.quantity = quantity;
+		}
+
+		public CustomerOrderStatus getStatus() {
+			return status;
+		}
+
+		public int[] getSkus() {
+			return skus;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+	}
+
+	private final String id;
+	private final AID supplier;
+	private final int[] quantities = new int[Sku.COUNT]; //by sku
+	private final ArrayList<Allocation> allocations = new ArrayList<>();
+	private int cost = 0;
+
+	public PurchaseOrder(String id, AID supplier) {
+		this.id = id;
+		this.supplier = supplier;
+	}
+
+	//add the parts of a customer order at the given bill of materials positions
+	public void allocate(CustomerOrderStatus status, ArrayList<Integer> positions) {
+		int[] billOfMaterials = status.getBillOfMaterials();
+		int[] partPrices = status.getPartPrices();
+		int quantity = status.getOrder().getQuantity();
+		int[] skus = new int[positions.size()];
+		for(int i=0; i<skus.length; i++) {
+			int position = positions.get(i);
+			skus[i] = billOfMaterials[position];
+			quantities[skus[i]] += quantity;
+			cost += partPrices[position] * quantity;
+		}
+		allocations.add(new Allocation(status, skus, quantity));
+	}
+
+	//one line per sku bought
+	public ArrayList<PurchaseLine> lines() {
+		ArrayList<PurchaseLine> lines = new ArrayList<>();
+		for(int sku=0; sku<Sku.COUNT; sku++) {
+			if(quantities[sku] > 0) {
+				PurchaseLine line = new PurchaseLine();
+				line.setComponent(Sku.component(sku));
+				line.setQuantity(quantities[sku]);
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public AID getSupplier() {
+		return supplier;
+	}
+
+	public ArrayList<Allocation> getAllocations() {
+		return allocations;
+	}
+
+	public int getCost() {
+		return cost;
+	}
+
+}
@@ -0,0 +1,59 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.HashSet;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
+
+/*
+ * Subscribes to the yellow pages for the ticker agent and tells it this
+ * agent is "ready" as soon as the ticker registers (or straight away if
+ * it is already registered)
+ * */
+
+public class ReadySignalBehaviour extends SubscriptionInitiator {
+
+	private static final long serialVersionUID = 1L;
+	private HashSet<AID> signalled = new HashSet<>();
+
+	public ReadySignalBehaviour(Agent a) {
+		super(a, createSubscription(a));
+	}
+
+	private static ACLMessage createSubscription(Agent a) {
+		DFAgentDescription template = new DFAgentDescription();
+		ServiceDescription sd = new ServiceDescription();
+		sd.setType("ticker-agent");
+		template.addServices(sd);
+		return DFService.createSubscriptionMessage(a, a.getDefaultDF(), template, null);
+	}
+
+	@Override
+	protected void handleInform(ACLMessage inform) {
+		try {
+			DFAgentDescription[] tickers = DFService.decodeNotification(inform.getContent());
+			ACLMessage ready = new ACLMessage(ACLMessage.INFORM);
+			ready.setContent("ready");
+			boolean send = false;
+			for(DFAgentDescription ticker : tickers) {
+				//only registrations have services and each ticker is told once
+				if(ticker.getAllServices().hasNext() && signalled.add(ticker.getName())) {
+					ready.addReceiver(ticker.getName());
+					send = true;
+				}
+			}
+			if(send) {
+				SimulationStats.send(myAgent, ready);
+			}
+		}catch(FIPAException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
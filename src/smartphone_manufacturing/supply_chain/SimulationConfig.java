@@ -0,0 +1,175 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
+
+/*
+ * Launch settings for a simulation run. Values are read from an optional
+ * properties file (--config=file) and then overridden by --key=value args
+ * */
+
+public class SimulationConfig {
+
+	private boolean headless = false;
+	private int customers = 3;
+	private int manufacturers = 1;
+	private int days = TickerAgent.num_days;
+	private int[] supplierProfiles = {1, 2};
+	private int creationThreads = Math.max(1, java.lang.Runtime.getRuntime().availableProcessors());
+	private String codec = ContentCodecs.SL;
+	private long seed = System.nanoTime(); //printed with the config so a run can be repeated
+	private WorkloadProfile workload = new WorkloadProfile();
+	private String trace; //order trace file, customers replay it instead of generating orders
+	private int containers = 0; //peripheral container jvms, 0 = everything in the main container
+	private String mainHost = "localhost";
+	private int mainPort = 1099;
+	private int containerIndex = Main.MAIN_CONTAINER; //set by Main for peripheral containers
+	private int tickerFanout = 0; //agents per sub-ticker in the day barrier tree, 0 = no tree
+	private String stageStats = "run"; //manufacturer stage timings: off, run or day
+	private String reportDir = "reports"; //manufacturers' daily csv reports
+	private String scheduler = ProductionScheduler.PROFIT; //how manufacturers pick the orders to build
+	private int dailyCapacity = 50; //phones a manufacturer can build in a day
+
+	public static SimulationConfig load(String[] args) throws IOException {
+		Properties props = new Properties();
+		//load config file first so command line values take priority
+		for(String arg : args) {
+			if(arg.startsWith("--config=")) {
+				try(InputStream in = new FileInputStream(arg.substring("--config=".length()))) {
+					props.load(in);
+				}
+			}
+		}
+		for(String arg : args) {
+			if(!arg.startsWith("--") || arg.startsWith("--config=")) {
+				continue;
+			}
+			int split = arg.indexOf('=');
+			if(split < 0) {
+				props.setProperty(arg.substring(2), "true"); //flag e.g. --headless
+			}else {
+				props.setProperty(arg.substring(2, split), arg.substring(split + 1));
+			}
+		}
+
+		SimulationConfig config = new SimulationConfig();
+		config.headless = Boolean.parseBoolean(props.getProperty("headless", "false"));
+		config.customers = Integer.parseInt(props.getProperty("customers", String.valueOf(config.customers)));
+		config.manufacturers = Integer.parseInt(props.getProperty("manufacturers", String.valueOf(config.manufacturers)));
+		config.days = Integer.parseInt(props.getProperty("days", String.valueOf(config.days)));
+		config.creationThreads = Integer.parseInt(props.getProperty("creation-threads", String.valueOf(config.creationThreads)));
+		config.codec = props.getProperty("codec", config.codec);
+		config.seed = Long.parseLong(props.getProperty("seed", String.valueOf(config.seed)));
+		config.workload = WorkloadProfile.load(props);
+		config.trace = props.getProperty("trace");
+		config.containers = Integer.parseInt(props.getProperty("containers", String.valueOf(config.containers)));
+		config.mainHost = props.getProperty("main-host", config.mainHost);
+		config.mainPort = Integer.parseInt(props.getProperty("main-port", String.valueOf(config.mainPort)));
+		config.tickerFanout = Integer.parseInt(props.getProperty("ticker-fanout", String.valueOf(config.tickerFanout)));
+		config.reportDir = props.getProperty("report-dir", config.reportDir);
+		config.scheduler = props.getProperty("scheduler", config.scheduler);
+		config.dailyCapacity = Integer.parseInt(props.getProperty("daily-capacity", String.valueOf(config.dailyCapacity)));
+		config.stageStats = props.getProperty("stage-stats", config.stageStats);
+		config.containerIndex = Integer.parseInt(props.getProperty("container-index", String.valueOf(config.containerIndex)));
+		if(props.containsKey("suppliers")) {
+			//comma separated supplier profiles e.g. 1,2,2
+			String[] profiles = props.getProperty("suppliers").split(",");
+			config.supplierProfiles = new int[profiles.length];
+			for(int i=0; i<profiles.length; i++) {
+				config.supplierProfiles[i] = Integer.parseInt(profiles[i].trim());
+			}
+		}
+		return config;
+	}
+
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	public int getCustomers() {
+		return customers;
+	}
+
+	public int getManufacturers() {
+		return manufacturers;
+	}
+
+	public int getDays() {
+		return days;
+	}
+
+	public int[] getSupplierProfiles() {
+		return supplierProfiles;
+	}
+
+	public int getCreationThreads() {
+		return creationThreads;
+	}
+
+	public String getCodec() {
+		return codec;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public WorkloadProfile getWorkload() {
+		return workload;
+	}
+
+	public String getTrace() {
+		return trace;
+	}
+
+	public int getContainers() {
+		return containers;
+	}
+
+	public String getMainHost() {
+		return mainHost;
+	}
+
+	public int getMainPort() {
+		return mainPort;
+	}
+
+	public int getTickerFanout() {
+		return tickerFanout;
+	}
+
+	public String getStageStats() {
+		return stageStats;
+	}
+
+	public String getReportDir() {
+		return reportDir;
+	}
+
+	public String getScheduler() {
+		return scheduler;
+	}
+
+	public int getDailyCapacity() {
+		return dailyCapacity;
+	}
+
+	public int getContainerIndex() {
+		return containerIndex;
+	}
+
+	@Override
+	public String toString() {
+		return "SimulationConfig [headless=" + headless + ", customers=" + customers + ", manufacturers=" + manufacturers + ", days=" + days
+				+ ", suppliers=" + java.util.Arrays.toString(supplierProfiles) + ", creationThreads=" + creationThreads + ", codec=" + codec
+				+ ", seed=" + seed + ", workload=" + workload + ", trace=" + trace
+				+ ", containers=" + containers + ", tickerFanout=" + tickerFanout
+				+ ", stageStats=" + stageStats + ", reportDir=" + reportDir
+				+ ", scheduler=" + scheduler + ", dailyCapacity=" + dailyCapacity + "]";
+	}
+
+}
@@ -0,0 +1,96 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+
+/*
+ * Run wide counters shared by all agents in this JVM. Agents send through
+ * here so message throughput can be reported at the end of a batch run.
+ * Peripheral containers' counts are added by the ticker when the run ends
+ * */
+
+public class SimulationStats {
+
+	private static final AtomicLong messagesSent = new AtomicLong();
+	private static final CountDownLatch finished = new CountDownLatch(1);
+	private static volatile long startNanos;
+	private static volatile long endNanos;
+	private static volatile int daysSimulated;
+	private static final Map<String, Long> containerMessages = new ConcurrentSkipListMap<>();
+
+	private SimulationStats() {}
+
+	//send message and count one delivery per receiver
+	public static void send(Agent agent, ACLMessage msg) {
+		MessageTraffic.getInstance().record(agent.getAID(), msg);
+		agent.send(msg);
+		long receivers = 0;
+		Iterator<?> it = msg.getAllReceiver();
+		while(it.hasNext()) {
+			it.next();
+			receivers++;
+		}
+		messagesSent.addAndGet(receivers);
+	}
+
+	public static void simulationStarted() {
+		startNanos = System.nanoTime();
+		MessageTraffic.getInstance().register();
+	}
+
+	//day messages are counted against, set in every JVM as its agents start the day
+	public static void dayStarted(int day) {
+		MessageTraffic.getInstance().dayStarted(day);
+	}
+
+	//last day is over, stops the clock
+	public static void simulationEnded(int days) {
+		daysSimulated = days;
+		endNanos = System.nanoTime();
+	}
+
+	//end of run reporting is complete, releases awaitFinish()
+	public static void simulationFinished() {
+		finished.countDown();
+	}
+
+	//messages sent from a peripheral container's jvm and its conversation totals, collected by the ticker at the end of the run
+	public static void addContainerReport(String container, long messages, String conversations) {
+		containerMessages.put(container, messages);
+		MessageTraffic.getInstance().addContainerTotals(conversations);
+	}
+
+	public static void awaitFinish() throws InterruptedException {
+		finished.await();
+	}
+
+	public static long getMessagesSent() {
+		return messagesSent.get();
+	}
+
+	public static String summary() {
+		double seconds = Math.max(1, endNanos - startNanos) / 1e9;
+		long total = messagesSent.get();
+		for(long messages : containerMessages.values()) {
+			total += messages;
+		}
+		StringBuilder summary = new StringBuilder(String.format("Simulated %d days in %.2f s: %.2f days/sec, %d messages, %.0f messages/sec",
+				daysSimulated, seconds, daysSimulated / seconds, total, total / seconds));
+		if(!containerMessages.isEmpty()) {
+			//per container throughput, messages counted where they were sent
+			summary.append(String.format("%n  %-16s %12d messages %12.0f messages/sec", "main-container", messagesSent.get(), messagesSent.get() / seconds));
+			for(Map.Entry<String, Long> entry : containerMessages.entrySet()) {
+				summary.append(String.format("%n  %-16s %12d messages %12.0f messages/sec", entry.getKey(), entry.getValue(), entry.getValue() / seconds));
+			}
+		}
+		summary.append(String.format("%n")).append(MessageTraffic.getInstance().report());
+		return summary.toString();
+	}
+
+}
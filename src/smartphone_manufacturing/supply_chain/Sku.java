@@ -0,0 +1,82 @@
+package smartphone_manufacturing.supply_chain;
+
+import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
+import smartphone_manufacturing.supply_chain_ontology.concepts.SmartPhone;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.*;
+
+/*
+ * Stable stock keeping unit ids for every component type. Ids are dense
+ * (0 to COUNT-1) so they can index primitive arrays
+ * */
+
+public class Sku {
+
+	public static final int SMALL_SCREEN = 0;
+	public static final int PHABLET_SCREEN = 1;
+	public static final int STORAGE_64 = 2;
+	public static final int STORAGE_256 = 3;
+	public static final int RAM_4 = 4;
+	public static final int RAM_8 = 5;
+	public static final int SMALL_BATTERY = 6;
+	public static final int PHABLET_BATTERY = 7;
+	public static final int COUNT = 8;
+
+	private Sku() {}
+
+	public static int of(PhoneComponent component) {
+		if(component instanceof SmallScreen) {
+			return SMALL_SCREEN;
+		}else if(component instanceof PhabletScreen) {
+			return PHABLET_SCREEN;
+		}else if(component instanceof SmallBattery) {
+			return SMALL_BATTERY;
+		}else if(component instanceof PhabletBattery) {
+			return PHABLET_BATTERY;
+		}else if(component instanceof Storage) {
+			int gb = ((Storage) component).getStorage();
+			if(gb == 64) {
+				return STORAGE_64;
+			}else if(gb == 256) {
+				return STORAGE_256;
+			}
+		}else if(component instanceof RAM) {
+			int gb = ((RAM) component).getGb();
+			if(gb == 4) {
+				return RAM_4;
+			}else if(gb == 8) {
+				return RAM_8;
+			}
+		}
+		throw new IllegalArgumentException("No SKU for component " + component);
+	}
+
+	//new component instance for a sku, used when building messages
+	public static PhoneComponent component(int sku) {
+		switch(sku) {
+		case SMALL_SCREEN: return new SmallScreen();
+		case PHABLET_SCREEN: return new PhabletScreen();
+		case STORAGE_64: return new Storage(64);
+		case STORAGE_256: return new Storage(256);
+		case RAM_4: return new RAM(4);
+		case RAM_8: return new RAM(8);
+		case SMALL_BATTERY: return new SmallBattery();
+		case PHABLET_BATTERY: return new PhabletBattery();
+		default: throw new IllegalArgumentException("Unknown SKU " + sku);
+		}
+	}
+
+	//bit set of the skus in a bill of materials, identifies a phone configuration
+	public static int configuration(int[] billOfMaterials) {
+		int configuration = 0;
+		for(int sku : billOfMaterials) {
+			configuration |= 1 << sku;
+		}
+		return configuration;
+	}
+
+	//skus needed to build one phone (one of each), same order as getPhoneComponents()
+	public static int[] billOfMaterials(SmartPhone phone) {
+		return new int[] {of(phone.getBattery()), of(phone.getScreen()), of(phone.getStorage()), of(phone.getRAM())};
+	}
+
+}
@@ -0,0 +1,137 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+import jade.core.AID;
+
+/*
+ * Chooses a supplier for each component of a customer order. Supplier
+ * price lists are folded into a table by lead time (the distinct delivery
+ * days, quickest first) and sku holding the cheapest supplier that sells
+ * the sku within that lead time, so a longer lead time is never dearer.
+ * The table is rebuilt whenever supplier details arrive, O(lead times x
+ * suppliers x skus); pricing an order reads one row, and the unit cost of
+ * each phone configuration at each lead time is worked out once. All of an
+ * order's parts are bought on one day, so parts from a quicker supplier
+ * wait in the warehouse for the slowest and are charged storage
+ * */
+
+public class SourcingOptimiser {
+
+	private int[] leadTimes = new int[0]; //delivery days, quickest first
+	private int[][] prices = new int[0][]; //by lead time and sku, -1 if nobody sells it that quickly
+	private AID[][] suppliers = new AID[0][];
+	private int[][] leads = new int[0][]; //by lead time and sku, delivery days of the chosen supplier
+	private int[][] unitCosts = new int[0][]; //by lead time and configuration, -1 until worked out, -2 if not covered
+
+	//use every supplier that has sent its prices
+	public void rebuild(Collection<SupplierType> candidates) {
+		TreeSet<Integer> deliveries = new TreeSet<>();
+		ArrayList<SupplierType> priced = new ArrayList<>();
+		for(SupplierType candidate : candidates) {
+			if(candidate.getPrices() != null) {
+				priced.add(candidate);
+				deliveries.add(candidate.getDelivery());
+			}
+		}
+		int options = deliveries.size();
+		leadTimes = new int[options];
+		prices = new int[options][Sku.COUNT];
+		suppliers = new AID[options][Sku.COUNT];
+		leads = new int[options][Sku.COUNT];
+		unitCosts = new int[options][1 << Sku.COUNT];
+		int option = 0;
+		for(int delivery : deliveries) {
+			leadTimes[option] = delivery;
+			//start from the quicker lead time's choice, then add the suppliers with exactly this delivery
+			if(option > 0) {
+				prices[option] = prices[option - 1].clone();
+				suppliers[option] = suppliers[option - 1].clone();
+				leads[option] = leads[option - 1].clone();
+			}else {
+				Arrays.fill(prices[option], -1);
+			}
+			for(SupplierType candidate : priced) {
+				if(candidate.getDelivery() != delivery) {
+					continue;
+				}
+				int[] priceVector = candidate.getPriceVector();
+				for(int sku=0; sku<Sku.COUNT; sku++) {
+					if(priceVector[sku] >= 0 && (prices[option][sku] < 0 || priceVector[sku] < prices[option][sku])) {
+						prices[option][sku] = priceVector[sku];
+						suppliers[option][sku] = candidate.getSupplier();
+						leads[option][sku] = delivery;
+					}
+				}
+			}
+			Arrays.fill(unitCosts[option], -1);
+			option++;
+		}
+	}
+
+	public boolean hasSupplier() {
+		return leadTimes.length > 0;
+	}
+
+	public int getOptionCount() {
+		return leadTimes.length;
+	}
+
+	public int getLeadTime(int option) {
+		return leadTimes[option];
+	}
+
+	//cost of components for the whole order, -1 if the lead time does not cover the phone
+	public int quote(int option, int[] billOfMaterials, int quantity) {
+		int unitCost = unitCost(option, billOfMaterials);
+		return unitCost < 0 ? -1 : unitCost * quantity;
+	}
+
+	//storage on parts that arrive before the slowest one, for the whole order
+	public int holdingCost(int option, int[] billOfMaterials, int quantity) {
+		int waitingDays = 0;
+		for(int sku : billOfMaterials) {
+			waitingDays += leadTimes[option] - leads[option][sku];
+		}
+		return waitingDays * quantity * Ledger.STORAGE_COST_PER_UNIT;
+	}
+
+	//supplier of each part of the bill of materials
+	public AID[] suppliersFor(int option, int[] billOfMaterials) {
+		AID[] chosen = new AID[billOfMaterials.length];
+		for(int i=0; i<billOfMaterials.length; i++) {
+			chosen[i] = suppliers[option][billOfMaterials[i]];
+		}
+		return chosen;
+	}
+
+	//unit price of each part of the bill of materials
+	public int[] pricesFor(int option, int[] billOfMaterials) {
+		int[] chosen = new int[billOfMaterials.length];
+		for(int i=0; i<billOfMaterials.length; i++) {
+			chosen[i] = prices[option][billOfMaterials[i]];
+		}
+		return chosen;
+	}
+
+	private int unitCost(int option, int[] billOfMaterials) {
+		int configuration = Sku.configuration(billOfMaterials);
+		int unitCost = unitCosts[option][configuration];
+		if(unitCost == -1) {
+			unitCost = 0;
+			for(int sku : billOfMaterials) {
+				if(prices[option][sku] < 0) {
+					unitCost = -2;
+					break;
+				}
+				unitCost += prices[option][sku];
+			}
+			unitCosts[option][configuration] = unitCost;
+		}
+		return unitCost;
+	}
+
+}
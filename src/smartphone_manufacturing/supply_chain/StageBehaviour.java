@@ -0,0 +1,67 @@
+package smartphone_manufacturing.supply_chain;
+
+import jade.core.Agent;
+import jade.core.behaviours.Behaviour;
+
+/*
+ * Behaviour timed into a StageStats. Subclasses put their work in
+ * stageAction() instead of action(). Wall time runs from the first
+ * action() to the one after which done() is true, blocked time from
+ * block() to the next action()
+ * */
+
+public abstract class StageBehaviour extends Behaviour {
+
+	private static final long serialVersionUID = 1L;
+
+	private final StageStats.Stage stage;
+	private long firstActionNanos = 0;
+	private long blockedNanos = 0;
+
+	public StageBehaviour(Agent a, StageStats stats) {
+		super(a);
+		stage = stats.isEnabled() ? stats.stage(getClass().getSimpleName()) : null;
+	}
+
+	protected abstract void stageAction();
+
+	@Override
+	public final void action() {
+		if(stage == null) {
+			stageAction();
+			return;
+		}
+		long start = System.nanoTime();
+		if(firstActionNanos == 0) {
+			firstActionNanos = start;
+		}
+		if(blockedNanos != 0) {
+			stage.recordBlocked(start - blockedNanos);
+			blockedNanos = 0;
+		}
+		stageAction();
+		long end = System.nanoTime();
+		stage.recordAction(end - start);
+		if(done()) {
+			stage.recordWall(end - firstActionNanos);
+			firstActionNanos = 0;
+		}
+	}
+
+	@Override
+	public void block() {
+		if(stage != null) {
+			blockedNanos = System.nanoTime();
+		}
+		super.block();
+	}
+
+	@Override
+	public void block(long millis) {
+		if(stage != null) {
+			blockedNanos = System.nanoTime();
+		}
+		super.block(millis);
+	}
+
+}
@@ -0,0 +1,104 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Timings of one agent's daily stages. For each stage keeps the wall time
+ * from first action() to done, the time spent in each action() call and
+ * the time spent blocked waiting for messages. Day timings are printed and
+ * folded into the run timings at the end of each day, run timings are
+ * printed when the agent is taken down.
+ * Reporting is chosen with -Dsupply_chain.stage-stats=off|run|day (default run)
+ * */
+
+public class StageStats {
+
+	public static final String MODE_PROPERTY = "supply_chain.stage-stats";
+
+	private final String owner;
+	private final String mode = System.getProperty(MODE_PROPERTY, "run");
+	private final LinkedHashMap<String, Stage> stages = new LinkedHashMap<>(); //in order first run
+
+	public StageStats(String owner) {
+		this.owner = owner;
+	}
+
+	public static class Timings {
+		private final LatencyHistogram wall = new LatencyHistogram();
+		private final LatencyHistogram action = new LatencyHistogram();
+		private final LatencyHistogram blocked = new LatencyHistogram();
+
+		void add(Timings other) {
+			wall.add(other.wall);
+			action.add(other.action);
+			blocked.add(other.blocked);
+		}
+
+		void clear() {
+			wall.clear();
+			action.clear();
+			blocked.clear();
+		}
+	}
+
+	public static class Stage {
+		private final Timings day = new Timings();
+		private final Timings run = new Timings();
+
+		public void recordAction(long nanos) {
+			day.action.record(nanos);
+		}
+
+		public void recordBlocked(long nanos) {
+			day.blocked.record(nanos);
+		}
+
+		public void recordWall(long nanos) {
+			day.wall.record(nanos);
+		}
+	}
+
+	public boolean isEnabled() {
+		return !mode.equals("off");
+	}
+
+	public Stage stage(String name) {
+		return stages.computeIfAbsent(name, n -> new Stage());
+	}
+
+	public void dayFinished(int day) {
+		if(mode.equals("day")) {
+			System.out.println(report(owner + " stages day " + day, false));
+		}
+		for(Stage stage : stages.values()) {
+			stage.run.add(stage.day);
+			stage.day.clear();
+		}
+	}
+
+	public void runFinished() {
+		if(isEnabled()) {
+			System.out.println(report(owner + " stages whole run", true));
+		}
+	}
+
+	//times in microseconds, wall and action as p50/p99/max
+	public String report(String title, boolean run) {
+		StringBuilder report = new StringBuilder(title);
+		report.append(String.format("%n  %-22s %6s %26s %9s %12s %26s %12s", "stage", "runs", "wall us p50/p99/max",
+				"actions", "action us", "action us p50/p99/max", "blocked us"));
+		for(Map.Entry<String, Stage> entry : stages.entrySet()) {
+			Timings timings = run ? entry.getValue().run : entry.getValue().day;
+			report.append(String.format("%n  %-22s %6d %26s %9d %12d %26s %12d", entry.getKey(), timings.wall.getCount(),
+					percentiles(timings.wall), timings.action.getCount(), timings.action.getSum() / 1000,
+					percentiles(timings.action), timings.blocked.getSum() / 1000));
+		}
+		return report.toString();
+	}
+
+	private static String percentiles(LatencyHistogram histogram) {
+		return (histogram.percentile(0.5) / 1000) + "/" + (histogram.percentile(0.99) / 1000) + "/" + (histogram.getMax() / 1000);
+	}
+
+}
@@ -0,0 +1,94 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+/*
+ * Node of the ticker's day barrier tree. Passes "new-day" and "terminate"
+ * down to its children (simulation agents or other sub-tickers) and sends
+ * a single "done" up to its parent once every child is done, so each
+ * node's parent counts one "done" per child. Started by the ticker with its
+ * children as argument
+ * */
+
+public class SubTickerAgent extends Agent {
+
+	private static final long serialVersionUID = 1L;
+
+	private AID parentTicker; //ticker or sub-ticker that sent "new-day", not Behaviour.parent
+	private ArrayList<AID> children = new ArrayList<>();
+	private HashSet<AID> doneChildren = new HashSet<>();
+	private boolean waiting = false; //day started and "done" not yet sent up
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void setup() {
+		Object[] args = getArguments();
+		if(args != null && args.length > 0) {
+			children.addAll((ArrayList<AID>) args[0]);
+		}
+		addBehaviour(new RelayBehaviour(this));
+	}
+
+	private void checkDone() {
+		if(waiting && doneChildren.containsAll(children)) {
+			ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
+			doneMsg.setContent("done");
+			doneMsg.addReceiver(parentTicker);
+			SimulationStats.send(this, doneMsg);
+			waiting = false;
+		}
+	}
+
+	public class RelayBehaviour extends CyclicBehaviour {
+
+		private static final long serialVersionUID = 1L;
+
+		public RelayBehaviour(Agent a) {
+			super(a);
+		}
+
+		@Override
+		public void action() {
+			MessageTemplate mt = MessageTemplate.or(MessageTemplate.or(MessageTemplate.MatchContent("new-day"), MessageTemplate.MatchContent("terminate")),
+					MessageTemplate.or(MessageTemplate.MatchContent("done"), MessageTemplate.MatchConversationId("agent-left")));
+			ACLMessage msg = myAgent.receive(mt);
+			if(msg == null) {
+				block();
+				return;
+			}
+			if("agent-left".equals(msg.getConversationId())) {
+				//child deregistered, stop waiting for it
+				children.remove(new AID(msg.getContent(), AID.ISGUID));
+				checkDone();
+			}else if(msg.getContent().equals("done")) {
+				doneChildren.add(msg.getSender());
+				checkDone();
+			}else {
+				parentTicker = msg.getSender();
+				if(!children.isEmpty()) {
+					ACLMessage relay = new ACLMessage(ACLMessage.INFORM);
+					relay.setContent(msg.getContent());
+					for(AID child : children) {
+						relay.addReceiver(child);
+					}
+					SimulationStats.send(myAgent, relay);
+				}
+				if(msg.getContent().equals("new-day")) {
+					doneChildren.clear();
+					waiting = true;
+					checkDone(); //no children left
+				}else {
+					myAgent.doDelete();
+				}
+			}
+		}
+	}
+
+}
@@ -1,14 +1,16 @@
 package smartphone_manufacturing.supply_chain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 import jade.content.Concept;
 import jade.content.ContentElement;
 import jade.content.lang.Codec;
 import jade.content.lang.Codec.CodecException;
-import jade.content.lang.sl.SLCodec;
 import jade.content.onto.Ontology;
 import jade.content.onto.OntologyException;
 import jade.content.onto.basic.Action;
@@ -24,36 +26,42 @@ import jade.domain.FIPAException;
 import jade.domain.FIPAAgentManagement.*;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import jade.proto.SubscriptionInitiator;
 /*import set10111.simulation.SellerAgent.EndDayListener;
 import set10111.simulation.SellerAgent.OffersServer;
 import set10111.simulation.SellerAgent.TickerWaiter.BookGenerator;
 import set10111.simulation.SellerAgent.TickerWaiter.FindBuyers;*/
+import smartphone_manufacturing.supply_chain_ontology.ContentCodecs;
 import smartphone_manufacturing.supply_chain_ontology.ManufacturingOntology;
 import smartphone_manufacturing.supply_chain_ontology.actions.SellComponents;
 import smartphone_manufacturing.supply_chain_ontology.actions.SendDetails;
 import smartphone_manufacturing.supply_chain_ontology.concepts.ComponentsOrder;
 import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
-import smartphone_manufacturing.supply_chain_ontology.predicates.ComponentsInStock;
-import smartphone_manufacturing.supply_chain_ontology.predicates.ComponentsSent;
+import smartphone_manufacturing.supply_chain_ontology.concepts.PurchaseLine;
+import smartphone_manufacturing.supply_chain_ontology.concepts.ShipmentLine;
+import smartphone_manufacturing.supply_chain_ontology.predicates.ShipmentManifest;
+import smartphone_manufacturing.supply_chain_ontology.predicates.DetailsNotModified;
 import smartphone_manufacturing.supply_chain_ontology.predicates.SentSupplierDetails;
 
 public class SupplierAgent extends Agent{
 	private int day = 1;
 	private AID tickerAgent;
-	private AID manufacturerAgent;
-	private Codec codec = new SLCodec();
+	private LinkedHashSet<AID> manufacturers = new LinkedHashSet<>(); //buyers, kept up to date by the yellow pages subscription
+	private EndOfDay endOfDay; //today's barrier, told when a manufacturer leaves
+	private Codec codec = ContentCodecs.selected(); //language for outgoing messages
 	private Ontology ontology = ManufacturingOntology.getInstance();
 
-	private ArrayList<ComponentsOrder> orders = new ArrayList<>();
+	private DeliveryCalendar deliveries = new DeliveryCalendar(); //orders by delivery day
 
 	HashMap<PhoneComponent, Integer> phoneComponents;
+	private int[] priceVector = new int[Sku.COUNT]; //catalogue price by sku, -1 if not sold
 	private int deliveryDays;
-	private int receivedMoney;
+	private int catalogueVersion = 0; //increases every time prices or delivery change
+	private HashMap<AID, Integer> sentVersions = new HashMap<>(); //catalogue version each buyer has
 
 	@Override
 	protected void setup() {
-		getContentManager().registerLanguage(codec);
-		getContentManager().registerOntology(ontology);
+		ContentCodecs.register(getContentManager());
 
 		//add agent to yp
 		DFAgentDescription dfd = new DFAgentDescription();
@@ -71,16 +79,58 @@ public class SupplierAgent extends Agent{
 		Object[] args = getArguments();
 		if (args != null && args.length > 0) {
 			if((int)args[0] == 1) {
-				phoneComponents = SupplierDetails.getSupplierOneComponents();
-				deliveryDays = SupplierDetails.getSupplierOneDelivery();
+				setCatalogue(SupplierDetails.getSupplierOneComponents(), SupplierDetails.getSupplierOneDelivery());
 			}else if((int)args[0] == 2) {
-				phoneComponents = SupplierDetails.getSupplierTwoComponents();
-				deliveryDays = SupplierDetails.getSupplierTwoDelivery();
+				setCatalogue(SupplierDetails.getSupplierTwoComponents(), SupplierDetails.getSupplierTwoDelivery());
 			}
 		}else {
 			System.out.println("Add arguments to supplier!");
 		}
+		addBehaviour(new ManufacturerSubscription(this));
 		addBehaviour(new TickerWaitBehaviour(this));
+		//tell ticker agent this agent is ready to start
+		addBehaviour(new ReadySignalBehaviour(this));
+	}
+
+	//new prices or delivery days, buyers that have the old catalogue get the new one pushed
+	public void setCatalogue(HashMap<PhoneComponent, Integer> components, int delivery) {
+		phoneComponents = components;
+		Arrays.fill(priceVector, -1);
+		for(Map.Entry<PhoneComponent, Integer> entry : components.entrySet()) {
+			priceVector[Sku.of(entry.getKey())] = entry.getValue();
+		}
+		deliveryDays = delivery;
+		catalogueVersion++;
+	}
+
+	//what the lines cost at today's prices, -1 if a component is not sold here
+	private long priceOf(ArrayList<PurchaseLine> lines) {
+		long total = 0;
+		for(PurchaseLine line : lines) {
+			int price = priceVector[Sku.of(line.getComponent())];
+			if(price < 0) {
+				return -1;
+			}
+			total += (long) price * line.getQuantity();
+		}
+		return total;
+	}
+
+	private SentSupplierDetails catalogue() {
+		ArrayList<PhoneComponent> components = new ArrayList<>();
+		ArrayList<Long> prices = new ArrayList<>();
+		//split hashmap into separate arrays
+		for(Map.Entry<PhoneComponent, Integer> entry : phoneComponents.entrySet()) {
+			components.add(entry.getKey());
+			prices.add(entry.getValue().longValue());
+		}
+		SentSupplierDetails sendDetails = new SentSupplierDetails();
+		sendDetails.setComponentPrices(prices);
+		sendDetails.setPhoneComponents(components);
+		sendDetails.setDevlieryDays(deliveryDays);
+		sendDetails.setSupplier(getAID());
+		sendDetails.setVersion(catalogueVersion);
+		return sendDetails;
 	}
 
 	@Override
@@ -106,27 +156,25 @@ public class SupplierAgent extends Agent{
 					MessageTemplate.MatchContent("terminate"));
 			ACLMessage msg = myAgent.receive(mt);
 			if(msg != null) {
-				if(tickerAgent == null) {
-					tickerAgent = msg.getSender(); //AID of ticker agent
-				}
+				//ticker or the sub-ticker collecting this agent's "done", can change between days
+				tickerAgent = msg.getSender();
 				//do computation here
 				if(msg.getContent().equals("new-day")) {
+					SimulationStats.dayStarted(day);
 					CyclicBehaviour sendDetails = new SendSupplierDetails(myAgent);
-					CyclicBehaviour respond = new RespondToRequests(myAgent);
 					CyclicBehaviour receive = new ReceiveOrders(myAgent);
 					ArrayList<Behaviour> removeBehaviours = new ArrayList<>();
 					removeBehaviours.add(sendDetails);
-					removeBehaviours.add(respond);
 					removeBehaviours.add(receive);
 					SequentialBehaviour dailyActivity = new SequentialBehaviour();
 					dailyActivity.addSubBehaviour(new FindManufacturer(myAgent));
 					dailyActivity.addSubBehaviour(new SendComponents(myAgent));
 					myAgent.addBehaviour(dailyActivity);
 					myAgent.addBehaviour(sendDetails);
-					myAgent.addBehaviour(respond);
 					myAgent.addBehaviour(receive);
 
-					myAgent.addBehaviour(new EndOfDay(myAgent, removeBehaviours));
+					endOfDay = new EndOfDay(myAgent, removeBehaviours);
+					myAgent.addBehaviour(endOfDay);
 				}
 				else {
 					//termination message to end simulation
@@ -147,19 +195,32 @@ public class SupplierAgent extends Agent{
 
 		@Override
 		public void action() {
-			//find manufacturer
-			DFAgentDescription manufacturerTemplate = new DFAgentDescription();
-			ServiceDescription sd = new ServiceDescription();
-			sd.setType("manufacturer-agent");
-			manufacturerTemplate.addServices(sd);
+			//manufacturers come from the yellow pages subscription
 			try {
-				DFAgentDescription[] manufacturerList  = DFService.search(myAgent, manufacturerTemplate);
-				if(manufacturerList.length >0) {
-					manufacturerAgent = manufacturerList[0].getName(); //gets AID of manufacturer
+				ACLMessage update = null;
+				for(AID manufacturerAgent : manufacturers) {
+					//push catalogue if it changed since the manufacturer last got it
+					Integer sentVersion = sentVersions.get(manufacturerAgent);
+					if(sentVersion != null && sentVersion != catalogueVersion) {
+						if(update == null) {
+							update = new ACLMessage(ACLMessage.INFORM);
+							update.setLanguage(codec.getName());
+							update.setOntology(ontology.getName());
+							update.setConversationId("supplier-details-update");
+						}
+						update.addReceiver(manufacturerAgent);
+						sentVersions.put(manufacturerAgent, catalogueVersion);
+					}
+				}
+				if(update != null) {
+					getContentManager().fillContent(update, catalogue());
+					SimulationStats.send(myAgent, update);
 				}
 
-			}catch(FIPAException e) {
-				e.printStackTrace();
+			}catch(CodecException ce) {
+				ce.printStackTrace();
+			}catch(OntologyException oe) {
+				oe.printStackTrace();
 			}
 		}
 	}
@@ -172,8 +233,6 @@ public class SupplierAgent extends Agent{
 
 		@Override
 		public void action() {
-			ArrayList<PhoneComponent> components = new ArrayList<>();
-			ArrayList<Long> prices = new ArrayList<>();
 			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST),MessageTemplate.MatchConversationId("request-supplier-details"));
 			ACLMessage msg = myAgent.receive(mt);
 			if(msg!= null) {
@@ -183,22 +242,20 @@ public class SupplierAgent extends Agent{
 					if (ce instanceof Action) {
 						Concept action = ((Action)ce).getAction();
 						if (action instanceof SendDetails) { 
+							SendDetails request = (SendDetails) action;
 							ACLMessage reply = msg.createReply();
 							reply.setPerformative(ACLMessage.INFORM);
-							//split hashmap into separate arrays
-							for(Map.Entry<PhoneComponent, Integer> entry : phoneComponents.entrySet()) {
-								PhoneComponent component = entry.getKey();
-								int price = entry.getValue();
-								components.add(component);
-								prices.add((long) price);
+							if(request.getKnownVersion() == catalogueVersion) {
+								//buyer already has this catalogue
+								DetailsNotModified notModified = new DetailsNotModified();
+								notModified.setSupplier(myAgent.getAID());
+								notModified.setVersion(catalogueVersion);
+								getContentManager().fillContent(reply, notModified);
+							}else {
+								getContentManager().fillContent(reply, catalogue());
 							}
-							SentSupplierDetails sendDetails = new SentSupplierDetails();
-							sendDetails.setComponentPrices(prices);
-							sendDetails.setPhoneComponents(components);
-							sendDetails.setDevlieryDays(deliveryDays);
-							sendDetails.setSupplier(myAgent.getAID());
-							getContentManager().fillContent(reply, sendDetails);
-							send(reply);
+							SimulationStats.send(myAgent, reply);
+							sentVersions.put(msg.getSender(), catalogueVersion);
 
 						}else {
 							System.out.println("wrong type received by manufacture to " + myAgent.getAID());
@@ -220,44 +277,6 @@ public class SupplierAgent extends Agent{
 
 	}
 
-	public class RespondToRequests extends CyclicBehaviour {
-
-		public RespondToRequests(Agent a) {
-			super(a);
-		}
-
-		@Override
-		public void action() {
-			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.QUERY_IF),MessageTemplate.MatchConversationId("sell-components-request"));
-			ACLMessage msg = myAgent.receive(mt);
-			if(msg!=null) {
-				try {
-					ContentElement ce = null;
-					ce = getContentManager().extractContent(msg);
-					if (ce instanceof ComponentsInStock) {
-						ComponentsInStock request = (ComponentsInStock) ce;
-						int quantity = request.getQuantity();
-						ArrayList<PhoneComponent> components = request.getComponents();
-						ACLMessage reply = msg.createReply();
-						reply.setPerformative(ACLMessage.CONFIRM);
-						reply.setConversationId("sell-components-response");
-						myAgent.send(reply);
-					}else {
-						System.out.println("Wrong predicate type from manufacturer agent");
-					}
-				}catch(CodecException ce) {
-					ce.printStackTrace();
-				}catch (OntologyException oe) {
-					oe.printStackTrace();
-				}catch(Exception e) {
-					e.printStackTrace();
-				}
-			}else {
-				block();
-			}
-		}
-	}
-
 	public class ReceiveOrders extends CyclicBehaviour {
 
 		public ReceiveOrders(Agent a) {
@@ -276,16 +295,32 @@ public class SupplierAgent extends Agent{
 						Concept action = ((Action) ce).getAction();
 						if (action instanceof SellComponents) {
 							SellComponents componentsOrder = (SellComponents) action;
-							ComponentsOrder order = new ComponentsOrder();
-							ArrayList<PhoneComponent> components = componentsOrder.getComponents();
-							int quantity = componentsOrder.getQuantity();
 							String orderID = componentsOrder.getOrderId();
-							order.setBuyer(msg.getSender());
-							order.setDelivery(day + deliveryDays);
-							order.setComponents(components);
-							order.setOrderID(orderID);
-							order.setQuantity(quantity);
-							orders.add(order);
+							//refuse parts not sold here, or paid for from an older price list that was cheaper
+							long price = priceOf(componentsOrder.getLines());
+							if(price < 0 || componentsOrder.getPrice() < price) {
+								ACLMessage reply = msg.createReply();
+								reply.setPerformative(ACLMessage.REFUSE);
+								SimulationStats.send(myAgent, reply);
+								return;
+							}
+							//one delivery per component type, shipped as a line with the purchase order id
+							for(PurchaseLine line : componentsOrder.getLines()) {
+								ComponentsOrder order = new ComponentsOrder();
+								ArrayList<PhoneComponent> components = new ArrayList<>();
+								components.add(line.getComponent());
+								order.setBuyer(msg.getSender());
+								order.setDelivery(day + deliveryDays);
+								order.setComponents(components);
+								order.setOrderID(orderID);
+								order.setQuantity(line.getQuantity());
+								deliveries.add(order);
+							}
+
+							//agree straight away, the reply's in-reply-to tells the buyer which purchase it is for
+							ACLMessage reply = msg.createReply();
+							reply.setPerformative(ACLMessage.AGREE);
+							SimulationStats.send(myAgent, reply);
 
 						}
 					}else {
@@ -314,73 +349,154 @@ public class SupplierAgent extends Agent{
 
 		@Override
 		public void action() {
-			try {
-				Thread.sleep(50);
-			} catch (InterruptedException e1) {
-				// TODO Auto-generated catch block
-				e1.printStackTrace();
-			}
 			//System.out.println("------------ " + getAID().getLocalName() + " SendComponents ------------");
 
-			for(ComponentsOrder order: orders) {
-				if (order.getDelivery() == day) {
-					ComponentsSent sendComponents= new ComponentsSent();
-
-					ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-					msg.setLanguage(codec.getName());
-					msg.setOntology(ontology.getName()); 
-					msg.addReceiver(order.getBuyer());
-					msg.setConversationId("send-components");
-
-					sendComponents.setOrderID(order.getOrderID());
-					sendComponents.setPhoneComponents(order.getComponents());
-					sendComponents.setQty(order.getQuantity());
-					sendComponents.setSeller(myAgent.getAID());
-					try {
-						getContentManager().fillContent(msg, sendComponents);
-						send(msg);
-					}catch(CodecException ce) {
-						ce.printStackTrace();
-					}catch (OntologyException oe) {
-						oe.printStackTrace();
-					}catch(Exception e) {
-						e.printStackTrace();
-					}
+			//only orders due today, they are removed from the calendar once sent
+			//one manifest per buyer with a line for each order
+			HashMap<AID, ArrayList<ShipmentLine>> manifests = new HashMap<>();
+			for(ComponentsOrder order: deliveries.takeDue(day)) {
+				ShipmentLine line = new ShipmentLine();
+				line.setOrderID(order.getOrderID());
+				line.setComponents(order.getComponents());
+				line.setQuantity(order.getQuantity());
+				manifests.computeIfAbsent(order.getBuyer(), b -> new ArrayList<>()).add(line);
+			}
+
+			for(Map.Entry<AID, ArrayList<ShipmentLine>> entry : manifests.entrySet()) {
+				ShipmentManifest manifest = new ShipmentManifest();
+
+				ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+				msg.setLanguage(codec.getName());
+				msg.setOntology(ontology.getName()); 
+				msg.addReceiver(entry.getKey());
+				msg.setConversationId("send-components");
+
+				manifest.setSeller(myAgent.getAID());
+				manifest.setDay(day);
+				manifest.setLines(entry.getValue());
+				try {
+					getContentManager().fillContent(msg, manifest);
+					SimulationStats.send(myAgent, msg);
+				}catch(CodecException ce) {
+					ce.printStackTrace();
+				}catch (OntologyException oe) {
+					oe.printStackTrace();
+				}catch(Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	//yellow pages notifications keep the manufacturer list current, one that
+	//deregisters is dropped from today's barrier as well
+	@SuppressWarnings("serial")
+	public class ManufacturerSubscription extends SubscriptionInitiator {
+
+		public ManufacturerSubscription(Agent a) {
+			super(a, createSubscription(a));
+		}
 
-				}else {
-					continue;
+		@Override
+		protected void handleInform(ACLMessage inform) {
+			try {
+				DFAgentDescription[] changes = DFService.decodeNotification(inform.getContent());
+				for(DFAgentDescription change : changes) {
+					if(change.getAllServices().hasNext()) {
+						manufacturers.add(change.getName());
+					}else {
+						//no services means the manufacturer deregistered
+						manufacturers.remove(change.getName());
+						sentVersions.remove(change.getName());
+						if(endOfDay != null) {
+							endOfDay.manufacturerLeft(change.getName());
+						}
+					}
 				}
+			}catch(FIPAException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static ACLMessage createSubscription(Agent a) {
+		return DFService.createSubscriptionMessage(a, a.getDefaultDF(), manufacturerTemplate(), null);
+	}
+
+	private static DFAgentDescription manufacturerTemplate() {
+		DFAgentDescription template = new DFAgentDescription();
+		ServiceDescription sd = new ServiceDescription();
+		sd.setType("manufacturer-agent");
+		template.addServices(sd);
+		return template;
+	}
+
+	//ask the yellow pages directly, for when the subscription has not reported anyone yet
+	private void searchManufacturers() {
+		try {
+			for(DFAgentDescription result : DFService.search(this, manufacturerTemplate())) {
+				manufacturers.add(result.getName());
 			}
+		}catch(FIPAException e) {
+			e.printStackTrace();
 		}
 	}
 
 	public class EndOfDay extends CyclicBehaviour{
 
 		private ArrayList<Behaviour> behaviours;
+		private HashSet<AID> waitingFor; //manufacturers registered when the day started that haven't finished
+		private boolean finished = false;
 		public EndOfDay(Agent a, ArrayList<Behaviour> behaviours) {
 			super(a);
 			this.behaviours = behaviours;
+			if(manufacturers.isEmpty()) {
+				//subscription notifications are asynchronous and may not have come in on the first day
+				searchManufacturers();
+			}
+			waitingFor = new HashSet<>(manufacturers);
 		}
 
 		@Override
 		public void action() {
+			//day is over once every manufacturer has finished with us or left,
+			//straight away if there are none
+			if(waitingFor.isEmpty()) {
+				finish();
+				return;
+			}
 			MessageTemplate mt = MessageTemplate.MatchContent("done");
 			ACLMessage msg = myAgent.receive(mt);
 			if(msg!=null) {
-				ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
-				doneMsg.setContent("done");
-				doneMsg.addReceiver(tickerAgent);
-				myAgent.send(doneMsg);
-				day++;
-
-				for(Behaviour behaviour : behaviours) {
-					myAgent.removeBehaviour(behaviour);
-				}
-				myAgent.removeBehaviour(this);
+				waitingFor.remove(msg.getSender());
 			}else {
 				block();
 			}
 		}
+
+		public void manufacturerLeft(AID manufacturer) {
+			if(waitingFor.remove(manufacturer)) {
+				restart();
+			}
+		}
+
+		private void finish() {
+			if(finished) {
+				return;
+			}
+			finished = true;
+			ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
+			doneMsg.setContent("done");
+			doneMsg.addReceiver(tickerAgent);
+			SimulationStats.send(myAgent, doneMsg);
+			day++;
+
+			for(Behaviour behaviour : behaviours) {
+				myAgent.removeBehaviour(behaviour);
+			}
+			myAgent.removeBehaviour(this);
+			endOfDay = null;
+		}
 	}
 
 
@@ -1,5 +1,6 @@
 package smartphone_manufacturing.supply_chain;
 import java.util.HashMap;
+import java.util.Map;
 
 import jade.core.AID;
 import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
@@ -9,6 +10,9 @@ public class SupplierType {
 	private AID supplier;
 	private int delivery;
 	private HashMap<PhoneComponent, Integer> prices;
+	private int[] priceVector = new int[Sku.COUNT]; //price per sku, -1 if not sold
+	private int version = 0; //catalogue version of the cached prices, 0 if none
+	private boolean validated = false; //cached prices known to be current
 	
 	public SupplierType(AID id) {
 		this.supplier = id;
@@ -36,6 +40,30 @@ public class SupplierType {
 
 	public void setPrices(HashMap<PhoneComponent, Integer> prices) {
 		this.prices = prices;
+		java.util.Arrays.fill(priceVector, -1);
+		for(Map.Entry<PhoneComponent, Integer> entry : prices.entrySet()) {
+			priceVector[Sku.of(entry.getKey())] = entry.getValue();
+		}
+	}
+
+	public int[] getPriceVector() {
+		return priceVector;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
+	public boolean isValidated() {
+		return validated;
+	}
+
+	public void setValidated(boolean validated) {
+		this.validated = validated;
 	}
 
 }
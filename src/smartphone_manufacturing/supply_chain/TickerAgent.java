@@ -1,24 +1,57 @@
 package smartphone_manufacturing.supply_chain;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.Behaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAException;
 import jade.domain.FIPAAgentManagement.*;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import jade.proto.SubscriptionInitiator;
+import jade.wrapper.AgentController;
+import jade.wrapper.StaleProxyException;
 
 /*
- * Ticker agent syncs global clock, tells agents when it is a new day
+ * Ticker agent syncs global clock, tells agents when it is a new day.
+ * The roster of simulation agents is kept up to date from yellow pages
+ * subscriptions and day 1 starts once every agent has sent "ready".
+ * With a fanout, agents report "done" to a tree of sub-tickers so the
+ * ticker only waits on the top of the tree
  * */
 
 public class TickerAgent extends Agent {
 	public static final int num_days = 100;
+	private int numDays = num_days;
+	private int expectedAgents = 0; //0 = start as soon as every agent found so far is ready
+	private int fanout = 0; //children per sub-ticker, 0 = every agent reports straight to the ticker
+
+	private LinkedHashSet<AID> roster = new LinkedHashSet<>();
+	private HashSet<AID> readyAgents = new HashSet<>();
+	private SynchAgentsBehaviour synch;
+	private ArrayList<AID> treeRoots = new ArrayList<>(); //top sub-tickers, the ticker's children
+	private HashMap<AID, AID> leafOf = new HashMap<>(); //sub-ticker each agent in the tree reports to
 
 	@Override
 	protected void setup() {
+		//arguments: number of days, number of agents to wait for
+		Object[] args = getArguments();
+		if(args != null && args.length > 0) {
+			numDays = (int) args[0];
+		}
+		if(args != null && args.length > 1) {
+			expectedAgents = (int) args[1];
+		}
+		if(args != null && args.length > 2) {
+			fanout = (int) args[2];
+		}
+
 		//add ticker agent to yellow pages
 		DFAgentDescription dfd = new DFAgentDescription();
 		dfd.setName(getAID());
@@ -33,9 +66,11 @@ public class TickerAgent extends Agent {
 			e.printStackTrace();
 		}
 
-		//wait for all other agents to start
-		doWait(5000);
-		addBehaviour(new SynchAgentsBehaviour(this));
+		//track simulation agents as they register and deregister
+		addBehaviour(new RosterSubscription(this, "supply-agent"));
+		addBehaviour(new RosterSubscription(this, "customer-agent"));
+		addBehaviour(new RosterSubscription(this, "manufacturer-agent"));
+		addBehaviour(new ReadyListener(this));
 	}
 
 	@Override
@@ -49,6 +84,123 @@ public class TickerAgent extends Agent {
 		}
 	}
 
+	//start ticking once the expected roster is complete and everyone is ready
+	private void checkReady() {
+		if(synch != null || roster.isEmpty() || roster.size() < expectedAgents) {
+			return;
+		}
+		if(readyAgents.containsAll(roster)) {
+			if(fanout > 1) {
+				buildTree(new ArrayList<>(roster));
+			}
+			SimulationStats.simulationStarted();
+			synch = new SynchAgentsBehaviour(this);
+			addBehaviour(synch);
+		}
+	}
+
+	//group agents under sub-tickers of at most fanout children, level by level,
+	//until the top level is small enough for the ticker to wait on directly
+	private void buildTree(List<AID> agents) {
+		List<AID> level = agents;
+		int depth = 0;
+		while(level.size() > fanout) {
+			List<AID> parents = new ArrayList<>();
+			for(int i=0; i < level.size(); i += fanout) {
+				ArrayList<AID> children = new ArrayList<>(level.subList(i, Math.min(i + fanout, level.size())));
+				AID subTicker = startSubTicker("subticker-" + depth + "-" + (i / fanout), children);
+				if(depth == 0) {
+					for(AID child : children) {
+						leafOf.put(child, subTicker);
+					}
+				}
+				parents.add(subTicker);
+			}
+			level = parents;
+			depth++;
+		}
+		treeRoots.addAll(level);
+	}
+
+	private AID startSubTicker(String name, ArrayList<AID> children) {
+		try {
+			AgentController subTicker = getContainerController().createNewAgent(name, SubTickerAgent.class.getCanonicalName(),
+					new Object[] {children});
+			subTicker.start();
+		}catch(StaleProxyException e) {
+			e.printStackTrace();
+		}
+		return new AID(name, AID.ISLOCALNAME);
+	}
+
+	public class RosterSubscription extends SubscriptionInitiator {
+
+		private static final long serialVersionUID = 1L;
+
+		public RosterSubscription(Agent a, String serviceType) {
+			super(a, createSubscription(a, serviceType));
+		}
+
+		@Override
+		protected void handleInform(ACLMessage inform) {
+			try {
+				DFAgentDescription[] changes = DFService.decodeNotification(inform.getContent());
+				for(DFAgentDescription change : changes) {
+					if(change.getAllServices().hasNext()) {
+						roster.add(change.getName());
+					}else {
+						//no services means the agent deregistered
+						roster.remove(change.getName());
+						readyAgents.remove(change.getName());
+						AID leaf = leafOf.remove(change.getName());
+						if(leaf != null) {
+							//its sub-ticker stops waiting for it
+							ACLMessage left = new ACLMessage(ACLMessage.INFORM);
+							left.setConversationId("agent-left");
+							left.setContent(change.getName().getName());
+							left.addReceiver(leaf);
+							SimulationStats.send(myAgent, left);
+						}else if(synch != null) {
+							synch.agentLeft(change.getName());
+						}
+					}
+				}
+				checkReady();
+			}catch(FIPAException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static ACLMessage createSubscription(Agent a, String serviceType) {
+		DFAgentDescription template = new DFAgentDescription();
+		ServiceDescription sd = new ServiceDescription();
+		sd.setType(serviceType);
+		template.addServices(sd);
+		return DFService.createSubscriptionMessage(a, a.getDefaultDF(), template, null);
+	}
+
+	public class ReadyListener extends CyclicBehaviour {
+
+		private static final long serialVersionUID = 1L;
+
+		public ReadyListener(Agent a) {
+			super(a);
+		}
+
+		@Override
+		public void action() {
+			MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM), MessageTemplate.MatchContent("ready"));
+			ACLMessage msg = myAgent.receive(mt);
+			if(msg != null) {
+				readyAgents.add(msg.getSender());
+				checkReady();
+			}else {
+				block();
+			}
+		}
+	}
+
 	public class SynchAgentsBehaviour extends Behaviour{
 
 		private static final long serialVersionUID = 1L;
@@ -65,52 +217,28 @@ public class TickerAgent extends Agent {
 		public void action() {
 			switch(step) {
 			case 0:
-				//find all agents (customers and suppliers
-				DFAgentDescription supplyTemplate = new DFAgentDescription();
-				ServiceDescription supplySd = new ServiceDescription();
-				supplySd.setType("supply-agent");
-				supplyTemplate.addServices(supplySd);
-				DFAgentDescription customerTemplate = new DFAgentDescription();
-				ServiceDescription customerSd = new ServiceDescription();
-				customerSd.setType("customer-agent");
-				customerTemplate.addServices(customerSd);
-				DFAgentDescription manufacturerTemplate = new DFAgentDescription();
-				ServiceDescription manufacturerSd = new ServiceDescription();
-				manufacturerSd.setType("manufacturer-agent");
-				manufacturerTemplate.addServices(manufacturerSd);
-				try {
-					simulationAgents.clear();
-					//search for supply agents
-					DFAgentDescription[] supplyAgents = DFService.search(myAgent, supplyTemplate);
-					for(int i=0; i<supplyAgents.length; i++) {
-						simulationAgents.add(supplyAgents[i].getName()); //this is the supply agents AID
-					}
-					//search for customer agents
-					DFAgentDescription[] customerAgents = DFService.search(myAgent, customerTemplate);
-					for(int i=0; i<customerAgents.length; i++) {
-						simulationAgents.add(customerAgents[i].getName()); //this is the customer agents AID
-					}
-					//search for manufacturer agents
-					DFAgentDescription[] manufacturerAgents = DFService.search(myAgent, manufacturerTemplate);
-					for(int i=0; i<manufacturerAgents.length; i++) {
-						simulationAgents.add(manufacturerAgents[i].getName()); //this is the manufacturer agents AID
+				//roster is maintained by the yellow pages subscriptions, agents in the
+				//sub-ticker tree are reached through its roots
+				simulationAgents.clear();
+				simulationAgents.addAll(treeRoots);
+				for(AID agent : roster) {
+					if(!leafOf.containsKey(agent)) {
+						simulationAgents.add(agent);
 					}
 				}
-				catch(FIPAException e) {
-					e.printStackTrace();
-				}
 				//send new day message to each agent
 				ACLMessage newDayTick = new ACLMessage(ACLMessage.INFORM);
 				newDayTick.setContent("new-day");
 				for(AID id: simulationAgents) {
 					newDayTick.addReceiver(id);
 				}
-				myAgent.send(newDayTick);
-				step++;
 				day++;
+				SimulationStats.dayStarted(day);
+				SimulationStats.send(myAgent, newDayTick);
+				step++;
 				break;
 			case 1:
-				//wait to receive 'done' messages from all agents 
+				//wait to receive 'done' messages from all agents
 				MessageTemplate mt = MessageTemplate.MatchContent("done");
 				ACLMessage msg = myAgent.receive(mt);
 				if(msg != null) {
@@ -125,6 +253,14 @@ public class TickerAgent extends Agent {
 			}
 		}
 
+		//agent deregistered part way through a day so stop waiting for it
+		public void agentLeft(AID agent) {
+			if(step == 1 && simulationAgents.remove(agent) && numReceivedMsgs >= simulationAgents.size()) {
+				step++;
+				restart();
+			}
+		}
+
 		@Override
 		public boolean done() {
 			return step == 2;
@@ -141,14 +277,15 @@ public class TickerAgent extends Agent {
 		public int onEnd() {
 			System.out.println("End-of-day " + day + "!\n\n");
 			//send termination to agents if end of days and terminate
-			if(day == num_days) {
+			if(day == numDays) {
 				ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
 				msg.setContent("terminate");
 				for(AID agent : simulationAgents) {
 					msg.addReceiver(agent);
 				}
-				myAgent.send(msg);
-				myAgent.doDelete();
+				SimulationStats.send(myAgent, msg);
+				SimulationStats.simulationEnded(day);
+				myAgent.addBehaviour(new CollectContainerStats(myAgent));
 			}
 			else {
 				reset();
@@ -158,4 +295,75 @@ public class TickerAgent extends Agent {
 		}
 	}
 
+	//ask each peripheral container for its message counts, then finish the run
+	public class CollectContainerStats extends Behaviour {
+
+		private static final long serialVersionUID = 1L;
+		private static final long TIMEOUT_MS = 5000;
+		private int step = 0;
+		private int requested = 0;
+		private int received = 0;
+		private long deadline;
+
+		public CollectContainerStats(Agent a) {
+			super(a);
+		}
+
+		@Override
+		public void action() {
+			switch(step) {
+			case 0:
+				DFAgentDescription template = new DFAgentDescription();
+				ServiceDescription sd = new ServiceDescription();
+				sd.setType("stats-agent");
+				template.addServices(sd);
+				try {
+					DFAgentDescription[] statsAgents = DFService.search(myAgent, template);
+					ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+					request.setConversationId("stats-report");
+					for(DFAgentDescription statsAgent : statsAgents) {
+						request.addReceiver(statsAgent.getName());
+					}
+					requested = statsAgents.length;
+					if(requested > 0) {
+						SimulationStats.send(myAgent, request);
+					}
+				}catch(FIPAException e) {
+					e.printStackTrace();
+				}
+				deadline = System.currentTimeMillis() + TIMEOUT_MS;
+				step++;
+				break;
+			case 1:
+				MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM), MessageTemplate.MatchConversationId("stats-report"));
+				ACLMessage msg = myAgent.receive(mt);
+				if(msg != null) {
+					SimulationStats.addContainerReport(msg.getUserDefinedParameter("container"),
+							Long.parseLong(msg.getUserDefinedParameter("messages")), msg.getContent());
+					received++;
+				}else if(received < requested) {
+					long wait = deadline - System.currentTimeMillis();
+					if(wait > 0) {
+						block(wait);
+					}else {
+						System.out.println("*** " + (requested - received) + " containers did not report stats ***");
+						requested = received;
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean done() {
+			return step == 1 && received >= requested;
+		}
+
+		@Override
+		public int onEnd() {
+			SimulationStats.simulationFinished();
+			myAgent.doDelete();
+			return 0;
+		}
+	}
+
 }
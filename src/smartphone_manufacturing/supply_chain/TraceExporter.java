@@ -0,0 +1,28 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+ * Writes the orders a generated run would produce to an order trace so
+ * they can be replayed with --trace=file. Takes the same settings as Main:
+ * --trace=orders.trace --customers=1000 --days=200 --seed=42 [--workload.*]
+ * */
+
+public class TraceExporter {
+
+	public static void main(String[] args) throws Exception {
+		SimulationConfig config = SimulationConfig.load(args);
+		if(config.getTrace() == null) {
+			System.out.println("Usage: TraceExporter --trace=file [--customers=N --days=N --seed=N --workload.*]");
+			return;
+		}
+		Path file = Paths.get(config.getTrace());
+		long start = System.nanoTime();
+		OrderTrace.write(file, config.getWorkload(), config.getSeed(), config.getDays(), config.getCustomers());
+		System.out.printf("Wrote %d orders (%d customers x %d days, seed %d) to %s in %.1f ms%n",
+				(long) config.getDays() * config.getCustomers(), config.getCustomers(), config.getDays(), config.getSeed(),
+				file, (System.nanoTime() - start) / 1e6);
+	}
+
+}
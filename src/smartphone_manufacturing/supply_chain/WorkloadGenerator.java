@@ -0,0 +1,75 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.SplittableRandom;
+
+import smartphone_manufacturing.supply_chain_ontology.concepts.CustomerOrder;
+import smartphone_manufacturing.supply_chain_ontology.concepts.SmartPhone;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletBattery;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.PhabletScreen;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.RAM;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallBattery;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.SmallScreen;
+import smartphone_manufacturing.supply_chain_ontology.concepts.smartPhoneComponents.Storage;
+
+/*
+ * One customer's order stream. Each customer has its own unshared PRNG
+ * seeded from the run seed and the customer's index, so the same seed
+ * gives the same orders whatever order the agents run in. Order ids are
+ * built from the customer index and a sequence number instead of UUIDs
+ * */
+
+public class WorkloadGenerator {
+
+	private final WorkloadProfile profile;
+	private final int customerIndex;
+	private final SplittableRandom random;
+	private int sequence = 0;
+
+	public WorkloadGenerator(WorkloadProfile profile, long runSeed, int customerIndex) {
+		this.profile = profile;
+		this.customerIndex = customerIndex;
+		this.random = new SplittableRandom(customerSeed(runSeed, customerIndex));
+	}
+
+	//SplitMix64 finaliser of the run seed and customer index, nearby indices get unrelated seeds
+	static long customerSeed(long runSeed, int customerIndex) {
+		long z = runSeed + (customerIndex + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public CustomerOrder nextOrder() {
+		int quantity = profile.getQuantity().sample(random);
+		int price = quantity * profile.getUnitPrice().sample(random);
+		int daysToDeadline = profile.getDeadline().sample(random);
+		int perDayPenalty = quantity * profile.getUnitPenalty().sample(random);
+
+		SmartPhone phone = new SmartPhone();
+		if(random.nextBoolean()) {
+			//small phone
+			phone.setBattery(new SmallBattery());
+			phone.setScreen(new SmallScreen());
+		}else {
+			//phablet
+			phone.setBattery(new PhabletBattery());
+			phone.setScreen(new PhabletScreen());
+		}
+		phone.setRAM(new RAM(random.nextBoolean() ? 4 : 8));
+		phone.setStorage(new Storage(random.nextBoolean() ? 64 : 256));
+
+		CustomerOrder order = new CustomerOrder();
+		order.setOrderID("c" + customerIndex + "-" + (sequence++));
+		order.setSmartPhone(phone);
+		order.setPrice(price);
+		order.setDaysToDeadline(daysToDeadline);
+		order.setQuantity(quantity);
+		order.setPerDayPenalty(perDayPenalty);
+		return order;
+	}
+
+	public int getCustomerIndex() {
+		return customerIndex;
+	}
+
+}
@@ -0,0 +1,157 @@
+package smartphone_manufacturing.supply_chain;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/*
+ * Ranges customer orders are drawn from, inclusive. Price and penalty are
+ * per phone. Defaults match the original customer generator. Set with
+ * workload.<name>=min-max e.g. --workload.quantity=10-20, and the shape
+ * with workload.<name>.distribution=uniform (default), normal[:stddev] or
+ * zipf[:exponent]. Normal is centred on the middle of the range with a
+ * default std dev of a sixth of it and clamped to the range. Zipf makes
+ * min the most likely value, falling off as 1/rank^exponent (default 1)
+ * */
+
+public class WorkloadProfile {
+
+	private Field quantity = new Field(1, 50);
+	private Field unitPrice = new Field(100, 599);
+	private Field deadline = new Field(1, 10);
+	private Field unitPenalty = new Field(1, 50);
+
+	public enum Distribution {
+		UNIFORM, NORMAL, ZIPF
+	}
+
+	//one order field's range and how values are spread over it
+	public static class Field {
+
+		private final int min;
+		private final int max;
+		private final Distribution distribution;
+		private final double parameter; //normal std dev or zipf exponent
+		private final double[] cumulative; //zipf weights summed over ranks, null otherwise
+
+		public Field(int min, int max) {
+			this(min, max, Distribution.UNIFORM, 0);
+		}
+
+		public Field(int min, int max, Distribution distribution, double parameter) {
+			this.min = min;
+			this.max = max;
+			this.distribution = distribution;
+			this.parameter = parameter;
+			if(distribution == Distribution.ZIPF) {
+				cumulative = new double[max - min + 1];
+				double total = 0;
+				for(int rank=1; rank<=cumulative.length; rank++) {
+					total += 1 / Math.pow(rank, parameter);
+					cumulative[rank - 1] = total;
+				}
+			}else {
+				cumulative = null;
+			}
+		}
+
+		public int sample(SplittableRandom random) {
+			switch(distribution) {
+			case NORMAL:
+				//Box-Muller, SplittableRandom has no nextGaussian on Java 11
+				double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+				long value = Math.round((min + max) / 2.0 + gaussian * parameter);
+				return (int) Math.max(min, Math.min(max, value));
+			case ZIPF:
+				double target = random.nextDouble() * cumulative[cumulative.length - 1];
+				int rank = Arrays.binarySearch(cumulative, target);
+				return min + (rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1));
+			default:
+				//same draw as the original generator so uniform runs are unchanged
+				return min + random.nextInt(max - min + 1);
+			}
+		}
+
+		public int getMin() {
+			return min;
+		}
+
+		public int getMax() {
+			return max;
+		}
+
+		public Distribution getDistribution() {
+			return distribution;
+		}
+
+		@Override
+		public String toString() {
+			String range = min + "-" + max;
+			return distribution == Distribution.UNIFORM ? range : range + " " + distribution.name().toLowerCase() + ":" + parameter;
+		}
+	}
+
+	public static WorkloadProfile load(Properties props) {
+		WorkloadProfile profile = new WorkloadProfile();
+		profile.quantity = field(props, "workload.quantity", profile.quantity);
+		profile.unitPrice = field(props, "workload.unit-price", profile.unitPrice);
+		profile.deadline = field(props, "workload.deadline", profile.deadline);
+		profile.unitPenalty = field(props, "workload.unit-penalty", profile.unitPenalty);
+		return profile;
+	}
+
+	private static Field field(Properties props, String key, Field defaultField) {
+		int min = defaultField.getMin();
+		int max = defaultField.getMax();
+		String value = props.getProperty(key);
+		if(value != null) {
+			String[] bounds = value.split("-");
+			min = Integer.parseInt(bounds[0].trim());
+			max = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : min;
+			if(min > max) {
+				throw new IllegalArgumentException("Bad range for " + key + ": " + value);
+			}
+		}
+		String shape = props.getProperty(key + ".distribution", "uniform").trim();
+		String[] parts = shape.split(":", 2);
+		Distribution distribution;
+		try {
+			distribution = Distribution.valueOf(parts[0].trim().toUpperCase());
+		}catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Bad distribution for " + key + ": " + shape);
+		}
+		double parameter;
+		if(parts.length > 1) {
+			parameter = Double.parseDouble(parts[1].trim());
+		}else {
+			parameter = distribution == Distribution.NORMAL ? (max - min) / 6.0 : 1;
+		}
+		if(parameter < 0) {
+			throw new IllegalArgumentException("Bad distribution for " + key + ": " + shape);
+		}
+		return new Field(min, max, distribution, parameter);
+	}
+
+	public Field getQuantity() {
+		return quantity;
+	}
+
+	public Field getUnitPrice() {
+		return unitPrice;
+	}
+
+	public Field getDeadline() {
+		return deadline;
+	}
+
+	public Field getUnitPenalty() {
+		return unitPenalty;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkloadProfile [quantity=" + quantity + ", unitPrice=" + unitPrice + ", deadline=" + deadline
+				+ ", unitPenalty=" + unitPenalty + "]";
+	}
+
+}
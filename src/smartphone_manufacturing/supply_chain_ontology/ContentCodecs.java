@@ -0,0 +1,42 @@
+package smartphone_manufacturing.supply_chain_ontology;
+
+import jade.content.ContentManager;
+import jade.content.lang.Codec;
+import jade.content.lang.leap.LEAPCodec;
+import jade.content.lang.sl.SLCodec;
+
+/*
+ * Content languages used with the ManufacturingOntology. SL is readable and
+ * good for debugging, LEAP is a compact binary codec that puts the content in
+ * the message byte sequence. The language used for outgoing messages is chosen
+ * per deployment with -Dsupply_chain.codec=sl|leap, both are always registered
+ * so agents can read messages in either language
+ * */
+
+public class ContentCodecs {
+
+	public static final String CODEC_PROPERTY = "supply_chain.codec";
+	public static final String SL = "sl";
+	public static final String LEAP = "leap";
+
+	private ContentCodecs() {}
+
+	//codec to use for outgoing messages
+	public static Codec selected() {
+		String name = System.getProperty(CODEC_PROPERTY, SL);
+		if(name.equalsIgnoreCase(LEAP)) {
+			return new LEAPCodec();
+		}else if(!name.equalsIgnoreCase(SL)) {
+			System.out.println("Unknown codec " + name + ", using SL");
+		}
+		return new SLCodec();
+	}
+
+	//register every supported language and the ontology
+	public static void register(ContentManager manager) {
+		manager.registerLanguage(new SLCodec());
+		manager.registerLanguage(new LEAPCodec());
+		manager.registerOntology(ManufacturingOntology.getInstance());
+	}
+
+}
@@ -1,5 +1,5 @@
 package smartphone_manufacturing.supply_chain_ontology.actions;
-import smartphone_manufacturing.supply_chain_ontology.concepts.PhoneComponent;
+import smartphone_manufacturing.supply_chain_ontology.concepts.PurchaseLine;
 
 import java.util.ArrayList;
 import jade.content.AgentAction;
@@ -7,24 +7,26 @@ import jade.content.onto.annotations.Slot;
 import jade.core.AID;
 
 /*
- * Action for manufacturer to buy components from supplier
+ * Action for manufacturer to buy components from supplier: one purchase
+ * order a day with a line per component type, payment is sent with the
+ * order
  * */
 
 public class SellComponents implements AgentAction {
 	private static final long serialVersionUID = 1L;
 	
-	private ArrayList<PhoneComponent> phoneComponents;
-	private String orderID;
-	private int quantity;
+	private ArrayList<PurchaseLine> lines;
+	private String orderID; //purchase order id, shipment lines carry it back
+	private int price; //paid for all the components
 	private AID manufacturer;
 	
 	@Slot(mandatory = true)
-	  public ArrayList<PhoneComponent> getComponents() {
-	    return phoneComponents;
+	  public ArrayList<PurchaseLine> getLines() {
+	    return lines;
 	  }
 	
-	public void setComponents(ArrayList<PhoneComponent> phoneComponents) {
-	    this.phoneComponents = phoneComponents;
+	public void setLines(ArrayList<PurchaseLine> lines) {
+	    this.lines = lines;
 	  }
 	
 	@Slot(mandatory = true)
@@ -34,14 +36,14 @@ public class SellComponents implements AgentAction {
 	  public void setOrderId(String orderID) {
 	    this.orderID = orderID;
 	  }
-	  
+	
 	@Slot(mandatory = true)
-	public int getQuantity() {
-		return quantity;
+	public int getPrice() {
+		return price;
 	}
 	
-	public void setQuantity(int quantity) {
-		this.quantity = quantity;
+	public void setPrice(int price) {
+		this.price = price;
 	}
 	
 	@Slot(mandatory = true)
@@ -7,7 +7,8 @@ import jade.core.AID;
 /**
  * Agent action to request a list of prices and delivery times 
  * from the supplier. These are returned with the 'SentSupplierDetails'
- * predicate from the supplier
+ * predicate from the supplier, or 'DetailsNotModified' if the buyer
+ * already has the supplier's current catalogue version
  * */
 
 public class SendDetails implements AgentAction {
@@ -15,6 +16,7 @@ public class SendDetails implements AgentAction {
 	private static final long serialVersionUID = 1L;
 	
 	private AID buyer;
+	private int knownVersion; //0 if the buyer has no catalogue yet
 	
 	@Slot(mandatory = true)
 	public AID getBuyer() {
@@ -25,5 +27,14 @@ public class SendDetails implements AgentAction {
 		this.buyer = buyer;
 	}
 	
+	@Slot(mandatory = true)
+	public int getKnownVersion() {
+		return knownVersion;
+	}
+	
+	public void setKnownVersion(int knownVersion) {
+		this.knownVersion = knownVersion;
+	}
+	
 
 }
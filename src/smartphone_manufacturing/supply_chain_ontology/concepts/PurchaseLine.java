@@ -0,0 +1,34 @@
+package smartphone_manufacturing.supply_chain_ontology.concepts;
+
+import jade.content.Concept;
+import jade.content.onto.annotations.Slot;
+
+/*
+ * One component type in a purchase order and how many of it to buy
+ * */
+
+public class PurchaseLine implements Concept {
+
+	private static final long serialVersionUID = 1L;
+	private PhoneComponent component;
+	private int quantity;
+	
+	@Slot(mandatory = true)
+	public PhoneComponent getComponent() {
+		return component;
+	}
+	
+	public void setComponent(PhoneComponent component) {
+		this.component = component;
+	}
+	
+	@Slot(mandatory = true)
+	public int getQuantity() {
+		return quantity;
+	}
+	
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+}
@@ -0,0 +1,47 @@
+package smartphone_manufacturing.supply_chain_ontology.concepts;
+
+import java.util.ArrayList;
+
+import jade.content.Concept;
+import jade.content.onto.annotations.Slot;
+
+/*
+ * One purchase order's components in a shipment manifest: each
+ * component is delivered 'quantity' times
+ * */
+
+public class ShipmentLine implements Concept {
+
+	private static final long serialVersionUID = 1L;
+	private String orderID;
+	private int quantity;
+	private ArrayList<PhoneComponent> components;
+	
+	@Slot(mandatory = true)
+	public String getOrderID() {
+		return orderID;
+	}
+	
+	public void setOrderID(String orderID) {
+		this.orderID = orderID;
+	}
+	
+	@Slot(mandatory = true)
+	public int getQuantity() {
+		return quantity;
+	}
+	
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+	
+	@Slot(mandatory = true)
+	public ArrayList<PhoneComponent> getComponents() {
+		return components;
+	}
+	
+	public void setComponents(ArrayList<PhoneComponent> components) {
+		this.components = components;
+	}
+
+}
@@ -0,0 +1,36 @@
+package smartphone_manufacturing.supply_chain_ontology.predicates;
+
+import jade.content.Predicate;
+import jade.content.onto.annotations.Slot;
+import jade.core.AID;
+
+/*
+ * Reply to a 'SendDetails' request when the buyer already has the
+ * supplier's current catalogue version
+ * */
+
+public class DetailsNotModified implements Predicate {
+
+	private static final long serialVersionUID = 1L;
+	private AID supplier;
+	private int version;
+	
+	@Slot(mandatory = true)
+	public AID getSupplier() {
+		return supplier;
+	}
+	
+	public void setSupplier(AID supplier) {
+		this.supplier = supplier;
+	}
+	
+	@Slot(mandatory = true)
+	public int getVersion() {
+		return version;
+	}
+	
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
+}
@@ -14,6 +14,7 @@ public class SentSupplierDetails implements Predicate {
 	private ArrayList<Long> componentPrices; //this will be used as the value
 	private ArrayList<PhoneComponent> phoneComponents; //this will be used as key (hashmaps not supported)
 	private int devlieryDays;
+	private int version; //catalogue version, changes when prices or delivery change
 	
 	@Slot(mandatory = true)
 	public AID getSupplier() {
@@ -50,6 +51,15 @@ public class SentSupplierDetails implements Predicate {
 		this.devlieryDays = devlieryDays;
 	}
 	
+	@Slot(mandatory = true)
+	public int getVersion() {
+		return version;
+	}
+	
+	public void setVersion(int version) {
+		this.version = version;
+	}
+	
 	
 
 }
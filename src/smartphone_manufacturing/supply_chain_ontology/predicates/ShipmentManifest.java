@@ -0,0 +1,49 @@
+package smartphone_manufacturing.supply_chain_ontology.predicates;
+
+import java.util.ArrayList;
+
+import jade.content.Predicate;
+import jade.content.onto.annotations.Slot;
+import jade.core.AID;
+import smartphone_manufacturing.supply_chain_ontology.concepts.ShipmentLine;
+
+/*
+ * Predicate that a supplier has shipped all of a buyer's orders due on
+ * one day, with one line per order
+ * */
+
+public class ShipmentManifest implements Predicate {
+
+	private static final long serialVersionUID = 1L;
+	private AID seller;
+	private int day;
+	private ArrayList<ShipmentLine> lines;
+	
+	@Slot(mandatory = true)
+	public AID getSeller() {
+		return seller;
+	}
+	
+	public void setSeller(AID seller) {
+		this.seller = seller;
+	}
+	
+	@Slot(mandatory = true)
+	public int getDay() {
+		return day;
+	}
+	
+	public void setDay(int day) {
+		this.day = day;
+	}
+	
+	@Slot(mandatory = true)
+	public ArrayList<ShipmentLine> getLines() {
+		return lines;
+	}
+	
+	public void setLines(ArrayList<ShipmentLine> lines) {
+		this.lines = lines;
+	}
+
+}